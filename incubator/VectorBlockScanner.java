@@ -0,0 +1,61 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+* Vector Block Scanner - Scans runs of values a full SIMD register at
+* a time through the incubating Vector API, finishing any remainder
+* one value at a time. It lives outside src so the library builds
+* without the incubator module. Compiling and running it needs
+* --add-modules jdk.incubator.vector, and BlockScanner.preferred
+* loads it by name only when it is on the class path, otherwise
+* falling back to the scalar scanner. Sums are accumulated lane by
+* lane, so they may differ from a sequential sum in the last bits
+*/
+public class VectorBlockScanner implements BlockScanner {
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	public double sum(double[] values, int from, int to) {
+		int i = from;
+		int bound = from + SPECIES.loopBound(to-from);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		for (; i < bound; i += SPECIES.length()) {
+			acc = acc.add(DoubleVector.fromArray(SPECIES,values,i));
+		}
+		double sum = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < to; i++) {
+			sum += values[i];
+		}
+		return sum;
+	}
+
+	public double max(double[] values, int from, int to) {
+		int i = from;
+		int bound = from + SPECIES.loopBound(to-from);
+		DoubleVector acc = DoubleVector.broadcast(SPECIES,Double.NEGATIVE_INFINITY);
+		for (; i < bound; i += SPECIES.length()) {
+			acc = acc.max(DoubleVector.fromArray(SPECIES,values,i));
+		}
+		double max = acc.reduceLanes(VectorOperators.MAX);
+		for (; i < to; i++) {
+			max = Math.max(max,values[i]);
+		}
+		return max;
+	}
+
+	public double min(double[] values, int from, int to) {
+		int i = from;
+		int bound = from + SPECIES.loopBound(to-from);
+		DoubleVector acc = DoubleVector.broadcast(SPECIES,Double.POSITIVE_INFINITY);
+		for (; i < bound; i += SPECIES.length()) {
+			acc = acc.min(DoubleVector.fromArray(SPECIES,values,i));
+		}
+		double min = acc.reduceLanes(VectorOperators.MIN);
+		for (; i < to; i++) {
+			min = Math.min(min,values[i]);
+		}
+		return min;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+* Finger Search Benchmark - Times inserts and finds of nearly sorted
+* String keys in RedBlackTree and AvlTree with finger search on and
+* off. Keys are sequential IDs, each swapped with one at most spread
+* places further on, and are inserted into a fresh tree then found in
+* that same order. Every configuration runs through warm-up rounds
+* first, then the median of the measured rounds is printed in
+* nanoseconds per operation. The figures are only a guide to relative
+* cost, a JMH harness should back any published number.
+* Usage : FingerSearchBenchmark [entries] [spread] [rounds] [seed]
+*/
+public class FingerSearchBenchmark {
+
+  private static final int WARMUP_ROUNDS = 5;
+
+  public static void main(String[] args) {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    int spread = args.length > 1 ? Math.max(1,Integer.parseInt(args[1])) : 16;
+    int rounds = args.length > 2 ? Math.max(1,Integer.parseInt(args[2])) : 7;
+    long seed = args.length > 3 ? Long.parseLong(args[3]) : 42L;
+    Random random = new Random(seed);
+    String[] keys = new String[n];
+    for (int i = 0; i < n; i++) {
+      keys[i] = String.format("id-%012d", i);
+    }
+    for (int i = 0; i < n; i++) {
+      int j = Math.min(n-1, i + random.nextInt(spread));
+      String swap = keys[i];
+      keys[i] = keys[j];
+      keys[j] = swap;
+    }
+
+    System.out.printf("%-28s%12s%12s%n", n + " keys, spread " + spread, "insert", "find");
+    print("RED_BLACK", run(false, false, keys, rounds));
+    print("RED_BLACK finger", run(false, true, keys, rounds));
+    print("AVL", run(true, false, keys, rounds));
+    print("AVL finger", run(true, true, keys, rounds));
+  }
+
+  private static void print(String name, double[] times) {
+    System.out.printf("%-28s%12.1f%12.1f%n", name, times[0], times[1]);
+  }
+
+  /**
+  * Retrieve the median insert and find times of the given tree over
+  * the measured rounds
+  */
+  private static double[] run(boolean avl, boolean finger, String[] keys, int rounds) {
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      measure(avl, finger, keys);
+    }
+    double[] inserts = new double[rounds];
+    double[] finds = new double[rounds];
+    for (int i = 0; i < rounds; i++) {
+      double[] times = measure(avl, finger, keys);
+      inserts[i] = times[0];
+      finds[i] = times[1];
+    }
+    return new double[] {median(inserts), median(finds)};
+  }
+
+  /**
+  * Time inserting keys into a fresh tree and then finding them, the
+  * checksum keeps the compiler from discarding the results
+  */
+  private static double[] measure(boolean avl, boolean finger, String[] keys) {
+    MambaTree<String,Integer> tree;
+    if (avl) {
+      AvlTree<String,Integer> avlTree = new AvlTree<String,Integer>();
+      avlTree.setFingerSearch(finger);
+      tree = avlTree;
+    }
+    else {
+      RedBlackTree<String,Integer> redBlackTree = new RedBlackTree<String,Integer>();
+      redBlackTree.setFingerSearch(finger);
+      tree = redBlackTree;
+    }
+    double[] times = new double[2];
+    long start = System.nanoTime();
+    for (int i = 0; i < keys.length; i++) {
+      tree.insert(keys[i], i);
+    }
+    times[0] = (System.nanoTime() - start) / (double) keys.length;
+
+    long checksum = 0;
+    start = System.nanoTime();
+    for (String key : keys) {
+      Integer value = tree.find(key);
+      checksum += value != null ? value : 0;
+    }
+    times[1] = (System.nanoTime() - start) / (double) keys.length;
+    if (checksum == 42) {
+      System.out.println();
+    }
+    return times;
+  }
+
+  private static double median(double[] times) {
+    Arrays.sort(times);
+    int rounds = times.length;
+    return rounds % 2 == 1 ? times[rounds/2] : (times[rounds/2-1] + times[rounds/2]) / 2;
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+* Key Prefix Benchmark - Times String lookups in RedBlackTree and
+* AvlTree with and without KeyNormalizer.STRING, so the cost of
+* compareTo can be weighed against comparing inline prefixes. Keys
+* are random letters after an optional shared prefix, and a shared
+* prefix of four or more characters makes every prefix tie, the
+* normalizer's worst case. Each tree is built and probed through
+* warm-up rounds first, then the median of the measured rounds is
+* printed in nanoseconds per lookup. The figures are only a guide to
+* relative cost, a JMH harness should back any published number.
+* Usage : KeyPrefixBenchmark [entries] [lookups] [prefix] [rounds] [seed]
+*/
+public class KeyPrefixBenchmark {
+
+  private static final int KEY_LENGTH = 16;
+  private static final int WARMUP_ROUNDS = 5;
+
+  public static void main(String[] args) {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+    int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 1500000;
+    int prefix = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+    int rounds = args.length > 3 ? Math.max(1,Integer.parseInt(args[3])) : 7;
+    long seed = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+    Random random = new Random(seed);
+    String shared = randomString(random, prefix);
+    String[] keys = new String[n];
+    for (int i = 0; i < n; i++) {
+      keys[i] = shared + randomString(random, KEY_LENGTH);
+    }
+    // probes hit present keys, built as new strings so no lookup
+    // succeeds on reference equality alone
+    String[] probes = new String[lookups];
+    for (int i = 0; i < lookups; i++) {
+      probes[i] = new String(keys[random.nextInt(n)]);
+    }
+
+    System.out.printf("%-28s%16s%n", n + " keys, prefix " + prefix, "ns/lookup");
+    System.out.printf("%-28s%16.1f%n", "RED_BLACK", run(new RedBlackTree<String,Integer>(), keys, probes, rounds));
+    System.out.printf("%-28s%16.1f%n", "RED_BLACK normalized",
+      run(RedBlackTree.<String,Integer>withNormalizer(KeyNormalizer.STRING), keys, probes, rounds));
+    System.out.printf("%-28s%16.1f%n", "AVL", run(new AvlTree<String,Integer>(), keys, probes, rounds));
+    System.out.printf("%-28s%16.1f%n", "AVL normalized",
+      run(AvlTree.<String,Integer>withNormalizer(KeyNormalizer.STRING), keys, probes, rounds));
+  }
+
+  /**
+  * Fill tree with keys, then retrieve the median time per lookup of
+  * probes over the measured rounds
+  */
+  private static double run(MambaTree<String,Integer> tree, String[] keys, String[] probes, int rounds) {
+    for (int i = 0; i < keys.length; i++) {
+      tree.insert(keys[i], i);
+    }
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      measure(tree, probes);
+    }
+    double[] times = new double[rounds];
+    for (int i = 0; i < rounds; i++) {
+      times[i] = measure(tree, probes);
+    }
+    Arrays.sort(times);
+    return rounds % 2 == 1 ? times[rounds/2] : (times[rounds/2-1] + times[rounds/2]) / 2;
+  }
+
+  /**
+  * Time one pass of lookups, the checksum keeps the compiler from
+  * discarding the results
+  */
+  private static double measure(MambaTree<String,Integer> tree, String[] probes) {
+    long checksum = 0;
+    long start = System.nanoTime();
+    for (String probe : probes) {
+      Integer value = tree.find(probe);
+      checksum += value != null ? value : 0;
+    }
+    double time = (System.nanoTime() - start) / (double) probes.length;
+    if (checksum == 42) {
+      System.out.println();
+    }
+    return time;
+  }
+
+  private static String randomString(Random random, int length) {
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = (char) ('a' + random.nextInt(26));
+    }
+    return new String(chars);
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,174 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+* Mamba Map Benchmark - Times every tree type behind a MambaMap against
+* java.util.TreeMap and ConcurrentSkipListMap on the common NavigableMap
+* workloads. Every map is first run through warm-up rounds so the JIT
+* has compiled the workloads, then through measured rounds on fresh
+* maps, and the median of the measured rounds is printed in
+* nanoseconds per operation with an asterisk on those that beat
+* TreeMap. Naming one map, TreeMap or a tree type, times it alone, which
+* keeps the others from sharing its call sites in the same JVM. The
+* figures are only a guide to relative cost, a JMH harness should back
+* any published number. Usage : MambaMapBenchmark [entries] [seed]
+* [rounds] [map]
+*/
+public class MambaMapBenchmark {
+
+  private static final String[] WORKLOADS = {"put", "get", "ceiling", "higher", "subMap", "pollFirst"};
+  private static final int WINDOW = 64;
+  private static final int WARMUP_ROUNDS = 5;
+
+  public static void main(String[] args) {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+    long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+    int rounds = args.length > 2 ? Math.max(1,Integer.parseInt(args[2])) : 7;
+    String only = args.length > 3 ? args[3] : null;
+    Integer[] keys = new Integer[n];
+    Integer[] probes = new Integer[n];
+    Random random = new Random(seed);
+    for (int i = 0; i < n; i++) {
+      keys[i] = random.nextInt(4 * n);
+      probes[i] = random.nextInt(4 * n);
+    }
+
+    List<String> names = new ArrayList<String>();
+    List<Factory> factories = new ArrayList<Factory>();
+    names.add("TreeMap");
+    factories.add(new Factory() { NavigableMap<Integer,Integer> create() {
+      return new TreeMap<Integer,Integer>(); } });
+    names.add("ConcurrentSkipListMap");
+    factories.add(new Factory() { NavigableMap<Integer,Integer> create() {
+      return new ConcurrentSkipListMap<Integer,Integer>(); } });
+    for (final TreeType type : TreeType.values()) {
+      names.add(type.name());
+      factories.add(new Factory() { NavigableMap<Integer,Integer> create() {
+        return new MambaMap<Integer,Integer>(TreeBuilder.build(type, new Integer[0], new Integer[0])); } });
+    }
+    names.add("ADAPTIVE");
+    factories.add(new Factory() { NavigableMap<Integer,Integer> create() {
+      return new MambaMap<Integer,Integer>(new AdaptiveTree<Integer,Integer>()); } });
+
+    List<double[]> rows = new ArrayList<double[]>();
+    for (int i = 0; i < names.size(); i++) {
+      if (only != null && !only.equalsIgnoreCase(names.get(i))) {
+        names.remove(i);
+        factories.remove(i--);
+        continue;
+      }
+      rows.add(run(factories.get(i), keys, probes, rounds));
+    }
+    if (rows.isEmpty()) {
+      System.out.println("no map named " + only);
+      return;
+    }
+
+    System.out.printf("%-24s", n + " entries (ns/op)");
+    for (String workload : WORKLOADS) {
+      System.out.printf("%12s", workload);
+    }
+    System.out.println();
+    // only a run that includes TreeMap has a baseline to mark against
+    double[] baseline = names.get(0).equals("TreeMap") ? rows.get(0) : null;
+    for (int i = 0; i < rows.size(); i++) {
+      System.out.printf("%-24s", names.get(i));
+      double[] row = rows.get(i);
+      for (int w = 0; w < row.length; w++) {
+        System.out.printf("%11.1f%s", row[w], baseline != null && i > 0 && row[w] < baseline[w] ? "*" : " ");
+      }
+      System.out.println();
+    }
+  }
+
+  private static abstract class Factory {
+    abstract NavigableMap<Integer,Integer> create();
+  }
+
+  /**
+  * Run the workloads through the warm-up rounds, then retrieve the
+  * median time of each workload over the measured rounds
+  */
+  private static double[] run(Factory factory, Integer[] keys, Integer[] probes, int rounds) {
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      measure(factory.create(), keys, probes);
+    }
+    double[][] samples = new double[WORKLOADS.length][rounds];
+    for (int i = 0; i < rounds; i++) {
+      double[] times = measure(factory.create(), keys, probes);
+      for (int w = 0; w < times.length; w++) {
+        samples[w][i] = times[w];
+      }
+    }
+    double[] medians = new double[WORKLOADS.length];
+    for (int w = 0; w < medians.length; w++) {
+      Arrays.sort(samples[w]);
+      medians[w] = rounds % 2 == 1 ? samples[w][rounds/2]
+        : (samples[w][rounds/2-1] + samples[w][rounds/2]) / 2;
+    }
+    return medians;
+  }
+
+  /**
+  * Time each workload over the given map, the checksum keeps the
+  * compiler from discarding the results
+  */
+  private static double[] measure(NavigableMap<Integer,Integer> map, Integer[] keys, Integer[] probes) {
+    double[] times = new double[WORKLOADS.length];
+    long checksum = 0;
+    long start = System.nanoTime();
+    for (Integer key : keys) {
+      map.put(key,key);
+    }
+    times[0] = (System.nanoTime() - start) / (double) keys.length;
+
+    start = System.nanoTime();
+    for (Integer probe : probes) {
+      Integer value = map.get(probe);
+      checksum += value != null ? value : 0;
+    }
+    times[1] = (System.nanoTime() - start) / (double) probes.length;
+
+    start = System.nanoTime();
+    for (Integer probe : probes) {
+      Integer key = map.ceilingKey(probe);
+      checksum += key != null ? key : 0;
+    }
+    times[2] = (System.nanoTime() - start) / (double) probes.length;
+
+    start = System.nanoTime();
+    for (Integer probe : probes) {
+      Map.Entry<Integer,Integer> entry = map.higherEntry(probe);
+      checksum += entry != null ? entry.getValue() : 0;
+    }
+    times[3] = (System.nanoTime() - start) / (double) probes.length;
+
+    int windows = probes.length / WINDOW;
+    start = System.nanoTime();
+    for (int i = 0; i < windows; i++) {
+      for (Integer value : map.subMap(probes[i], true, probes[i] + WINDOW, false).values()) {
+        checksum += value;
+      }
+    }
+    times[4] = (System.nanoTime() - start) / (double) Math.max(windows,1);
+
+    int size = map.size();
+    start = System.nanoTime();
+    while (map.pollFirstEntry() != null) {
+      checksum++;
+    }
+    times[5] = (System.nanoTime() - start) / (double) Math.max(size,1);
+
+    if (checksum == 42) {
+      System.out.println();
+    }
+    return times;
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,144 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+* Segment Tree Operator Benchmark - Times range queries and point
+* updates on LongSegmentTree built with the built-in operators, which
+* build() specializes, against trees built with equivalent operators
+* of the caller's own, which take the generic path through op. Trees
+* of five operators are queried in turn, as a program holding several
+* kinds of tree would, so the generic call sites see every operator.
+* Every configuration runs through warm-up rounds first, then the
+* median of the measured rounds is printed in nanoseconds per
+* operation. The figures are only a guide to relative cost, a JMH
+* harness should back any published number.
+* Usage : SegmentTreeOperatorBenchmark [elements] [operations] [rounds] [seed]
+*/
+public class SegmentTreeOperatorBenchmark {
+
+  private static final int WARMUP_ROUNDS = 5;
+
+  private static final LongSegmentTree.Operator[] BUILT_IN = {
+    LongSegmentTree.SUM, LongSegmentTree.MIN, LongSegmentTree.MAX,
+    LongSegmentTree.XOR, LongSegmentTree.OR
+  };
+
+  private static final LongSegmentTree.Operator[] OWN = {
+    new LongSegmentTree.Operator() {
+      public long combine(long x, long y) {
+        return x + y;
+      }
+    },
+    new LongSegmentTree.Operator() {
+      public long combine(long x, long y) {
+        return Math.min(x,y);
+      }
+    },
+    new LongSegmentTree.Operator() {
+      public long combine(long x, long y) {
+        return Math.max(x,y);
+      }
+    },
+    new LongSegmentTree.Operator() {
+      public long combine(long x, long y) {
+        return x ^ y;
+      }
+    },
+    new LongSegmentTree.Operator() {
+      public long combine(long x, long y) {
+        return x | y;
+      }
+    }
+  };
+
+  private static final long[] IDENTITIES = {0L, Long.MAX_VALUE, Long.MIN_VALUE, 0L, 0L};
+
+  public static void main(String[] args) {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+    int operations = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+    int rounds = args.length > 2 ? Math.max(1,Integer.parseInt(args[2])) : 7;
+    long seed = args.length > 3 ? Long.parseLong(args[3]) : 42L;
+    Random random = new Random(seed);
+    long[] values = new long[n];
+    for (int i = 0; i < n; i++) {
+      values[i] = random.nextInt();
+    }
+    int[] lows = new int[operations];
+    int[] highs = new int[operations];
+    for (int i = 0; i < operations; i++) {
+      int x = random.nextInt(n);
+      int y = random.nextInt(n);
+      lows[i] = Math.min(x,y);
+      highs[i] = Math.max(x,y);
+    }
+
+    System.out.printf("%-28s%12s%12s%n", n + " elements", "query", "update");
+    print("specialized", run(build(values,BUILT_IN), lows, highs, rounds));
+    print("generic", run(build(values,OWN), lows, highs, rounds));
+  }
+
+  private static void print(String name, double[] times) {
+    System.out.printf("%-28s%12.1f%12.1f%n", name, times[0], times[1]);
+  }
+
+  private static LongSegmentTree[] build(long[] values, LongSegmentTree.Operator[] ops) {
+    LongSegmentTree[] trees = new LongSegmentTree[ops.length];
+    for (int i = 0; i < ops.length; i++) {
+      trees[i] = LongSegmentTree.build(values, ops[i], IDENTITIES[i]);
+    }
+    return trees;
+  }
+
+  /**
+  * Retrieve the median query and update times of the given trees over
+  * the measured rounds
+  */
+  private static double[] run(LongSegmentTree[] trees, int[] lows, int[] highs, int rounds) {
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      measure(trees, lows, highs);
+    }
+    double[] queries = new double[rounds];
+    double[] updates = new double[rounds];
+    for (int i = 0; i < rounds; i++) {
+      double[] times = measure(trees, lows, highs);
+      queries[i] = times[0];
+      updates[i] = times[1];
+    }
+    return new double[] {median(queries), median(updates)};
+  }
+
+  /**
+  * Time every range query on each tree in turn, then as many updates
+  * spread across the trees, the checksum keeps the compiler from
+  * discarding the results
+  */
+  private static double[] measure(LongSegmentTree[] trees, int[] lows, int[] highs) {
+    int operations = lows.length;
+    double[] times = new double[2];
+    long checksum = 0;
+    long start = System.nanoTime();
+    for (LongSegmentTree tree : trees) {
+      for (int i = 0; i < operations; i++) {
+        checksum += tree.query(lows[i], highs[i]);
+      }
+    }
+    times[0] = (System.nanoTime() - start) / ((double) operations * trees.length);
+
+    start = System.nanoTime();
+    for (int i = 0; i < operations; i++) {
+      trees[i % trees.length].update(lows[i], highs[i]);
+    }
+    times[1] = (System.nanoTime() - start) / (double) operations;
+    if (checksum == 42) {
+      System.out.println();
+    }
+    return times;
+  }
+
+  private static double median(double[] times) {
+    Arrays.sort(times);
+    int rounds = times.length;
+    return rounds % 2 == 1 ? times[rounds/2] : (times[rounds/2-1] + times[rounds/2]) / 2;
+  }
+
+}
\ No newline at end of file
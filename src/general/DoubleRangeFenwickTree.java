@@ -0,0 +1,100 @@
+/**
+* Double Range Fenwick Tree - Binary indexed trees over a sequence of
+* n double elmts, indexed from 0 to n-1, that allow adding to a whole
+* range as well as summing a range in O(logn) time, by keeping the
+* differences of the sequence in two DoubleFenwickTrees as
+* FenwickIndex describes. The two terms of a prefix sum may be far
+* larger than their difference, which costs precision on long sequences
+*/
+public class DoubleRangeFenwickTree {
+
+  private final int n;
+  private final DoubleFenwickTree base;
+  private final DoubleFenwickTree scaled;
+
+  private DoubleRangeFenwickTree(double[] values) {
+    n = values.length;
+    double[] diffs = new double[n];
+    double[] scaledDiffs = new double[n];
+    for (int j = 0; j < n; j++) {
+      diffs[j] = values[j] - (j > 0 ? values[j-1] : 0);
+      scaledDiffs[j] = diffs[j]*j;
+    }
+    base = DoubleFenwickTree.build(diffs);
+    scaled = DoubleFenwickTree.build(scaledDiffs);
+  }
+
+  /**
+  * static factory method - restrict construction to
+  * non-empty sequences only
+  */
+  public static DoubleRangeFenwickTree build(double[] values) {
+    if (values == null || values.length == 0) {
+      return null;
+    }
+    return new DoubleRangeFenwickTree(values);
+  }
+
+  /**
+  * Retrieve number of elements in the sequence
+  */
+  public int size() {
+    return n;
+  }
+
+  /**
+  * Add delta to every element in sequence interval [low,high]
+  */
+  public void rangeAdd(int low, int high, double delta) {
+    low = Math.max(low,0);
+    high = Math.min(high,n-1);
+    if (high < low) { return; }
+    base.add(low,delta);
+    base.add(high+1,-delta);
+    scaled.add(low,delta*low);
+    scaled.add(high+1,-delta*(high+1));
+  }
+
+  /**
+  * Add delta to value in sequence at index
+  */
+  public void add(int index, double delta) {
+    if (index < 0 || index >= n) { return; }
+    rangeAdd(index,index,delta);
+  }
+
+  /**
+  * Retrieve value in sequence at index, 0 if out of bounds
+  */
+  public double get(int index) {
+    if (index < 0 || index >= n) { return 0; }
+    return base.prefixSum(index);
+  }
+
+  /**
+  * Retrieve sum of elements in sequence interval [0,index]
+  */
+  public double prefixSum(int index) {
+    index = Math.min(index,n-1);
+    if (index < 0) { return 0; }
+    return (index+1)*base.prefixSum(index) - scaled.prefixSum(index);
+  }
+
+  /**
+  * Retrieve sum of elements in sequence interval [low,high]
+  */
+  public double rangeSum(int low, int high) {
+    low = Math.max(low,0);
+    high = Math.min(high,n-1);
+    if (high < low) { return 0; }
+    return prefixSum(high) - prefixSum(low-1);
+  }
+
+  /**
+  * Estimate the heap retained by the tree in bytes
+  */
+  public long bytesUsed() {
+    return MemoryEstimator.object(2,4) + base.bytesUsed() + scaled.bytesUsed();
+  }
+
+}
\ No newline at end of file
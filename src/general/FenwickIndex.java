@@ -0,0 +1,40 @@
+/**
+* Fenwick Index - Index arithmetic shared by the long and double
+* Fenwick trees. Their slots count from 1, slot i holding the sum of
+* the (i & -i) elements ending at element i-1, and a grid applies the
+* same layout to rows and to columns. Adding to element i-1 visits
+* slot i and every parent of it, summing the prefix ending at element
+* i-1 visits slot i and every predecessor of it, each O(logn) slots.
+* The range trees keep a sequence as its differences d[j] = a[j]-a[j-1]
+* in one tree and as j*d[j] in another, so adding to a range touches
+* two slots of each and the prefix sum up to i is
+* (i+1)*sum(d[0..i]) - sum(j*d[j] for j <= i)
+*/
+public class FenwickIndex {
+
+  private FenwickIndex() {}
+
+  /**
+  * Retrieve the next slot whose elements include those of slot i
+  */
+  public static int parent(int i) {
+    return i + (i & -i);
+  }
+
+  /**
+  * Retrieve the slot whose elements end just before those of slot i,
+  * 0 once the prefix is exhausted
+  */
+  public static int predecessor(int i) {
+    return i - (i & -i);
+  }
+
+  /**
+  * Retrieve the slot ending at element index of a sequence of n
+  * elements, clamped to the last slot
+  */
+  public static int slot(int index, int n) {
+    return Math.min(index+1,n);
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,115 @@
+/**
+* Long Fenwick Tree - Binary indexed tree over a sequence of n
+* long elmts, indexed from 0 to n-1. Allows adding to a value and
+* summing a prefix or a range in O(logn) time, in a single array
+* of n+1 longs laid out as FenwickIndex describes
+*/
+public class LongFenwickTree {
+
+  private final long[] tree;
+
+  /**
+  * builds the tree in O(n) time by handing each slot's
+  * sum on to the next slot that covers it
+  */
+  private LongFenwickTree(long[] values) {
+    int n = values.length;
+    tree = new long[n+1];
+    System.arraycopy(values,0,tree,1,n);
+    for (int i = 1; i <= n; i++) {
+      int parent = FenwickIndex.parent(i);
+      if (parent <= n) {
+        tree[parent] += tree[i];
+      }
+    }
+  }
+
+  /**
+  * static factory method - restrict construction to
+  * non-empty sequences only
+  */
+  public static LongFenwickTree build(long[] values) {
+    if (values == null || values.length == 0) {
+      return null;
+    }
+    return new LongFenwickTree(values);
+  }
+
+  /**
+  * Retrieve number of elements in the sequence
+  */
+  public int size() {
+    return tree.length-1;
+  }
+
+  /**
+  * Add delta to value in sequence at index
+  */
+  public void add(int index, long delta) {
+    if (index < 0 || index >= tree.length-1) { return; }
+    for (int i = index+1; i < tree.length; i = FenwickIndex.parent(i)) {
+      tree[i] += delta;
+    }
+  }
+
+  /**
+  * Replace value in sequence at index with value
+  */
+  public void set(int index, long value) {
+    add(index,value-get(index));
+  }
+
+  /**
+  * Retrieve value in sequence at index, 0 if out of bounds
+  */
+  public long get(int index) {
+    return rangeSum(index,index);
+  }
+
+  /**
+  * Retrieve sum of elements in sequence interval [0,index]
+  */
+  public long prefixSum(int index) {
+    long sum = 0;
+    for (int i = FenwickIndex.slot(index,tree.length-1); i > 0; i = FenwickIndex.predecessor(i)) {
+      sum += tree[i];
+    }
+    return sum;
+  }
+
+  /**
+  * Retrieve sum of elements in sequence interval [low,high]
+  */
+  public long rangeSum(int low, int high) {
+    low = Math.max(low,0);
+    high = Math.min(high,tree.length-2);
+    if (high < low) { return 0; }
+    return prefixSum(high) - prefixSum(low-1);
+  }
+
+  /**
+  * Retrieve the least index whose prefix sum is at least x, -1 if
+  * the whole sequence sums to less. Found by a single descent over
+  * the slots, which requires every element to be non-negative
+  */
+  public int findFirstPrefixSumAtLeast(long x) {
+    int n = tree.length-1;
+    if (prefixSum(n-1) < x) { return -1; }
+    int pos = 0;
+    for (int step = Integer.highestOneBit(n); step > 0; step >>= 1) {
+      if (pos+step <= n && tree[pos+step] < x) {
+        pos += step;
+        x -= tree[pos];
+      }
+    }
+    return pos;
+  }
+
+  /**
+  * Estimate the heap retained by the tree in bytes
+  */
+  public long bytesUsed() {
+    return MemoryEstimator.object(1,0) + MemoryEstimator.array(tree.length,8);
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,129 @@
+/**
+* Long Fenwick Tree 2D - Binary indexed tree over a grid of r rows
+* and c columns of long elmts, indexed from (0,0). Allows adding to
+* a cell and summing a rectangle in O(logr*logc) time, in a single
+* (r+1)*(c+1) array laid out along both axes as FenwickIndex
+* describes, slot (i,j) covering the (i & -i) by (j & -j) cells
+* ending at cell (i-1,j-1)
+*/
+public class LongFenwickTree2D {
+
+  private final int rows;
+  private final int cols;
+  private final long[] tree;
+
+  /**
+  * builds the tree in O(rc) time, first along every
+  * row and then along every column
+  */
+  private LongFenwickTree2D(long[][] grid) {
+    rows = grid.length;
+    cols = grid[0].length;
+    tree = new long[(rows+1)*(cols+1)];
+    for (int i = 1; i <= rows; i++) {
+      System.arraycopy(grid[i-1],0,tree,slot(i,1),cols);
+      for (int j = 1; j <= cols; j++) {
+        int parent = FenwickIndex.parent(j);
+        if (parent <= cols) {
+          tree[slot(i,parent)] += tree[slot(i,j)];
+        }
+      }
+    }
+    for (int i = 1; i <= rows; i++) {
+      int parent = FenwickIndex.parent(i);
+      if (parent <= rows) {
+        for (int j = 1; j <= cols; j++) {
+          tree[slot(parent,j)] += tree[slot(i,j)];
+        }
+      }
+    }
+  }
+
+  /**
+  * static factory method - restrict construction to
+  * non-empty rectangular grids only
+  */
+  public static LongFenwickTree2D build(long[][] grid) {
+    if (grid == null || grid.length == 0 || grid[0] == null || grid[0].length == 0) {
+      return null;
+    }
+    for (long[] row : grid) {
+      if (row == null || row.length != grid[0].length) {
+        return null;
+      }
+    }
+    return new LongFenwickTree2D(grid);
+  }
+
+  /**
+  * Retrieve number of rows in the grid
+  */
+  public int rows() {
+    return rows;
+  }
+
+  /**
+  * Retrieve number of columns in the grid
+  */
+  public int cols() {
+    return cols;
+  }
+
+  /**
+  * Add delta to value of cell (row,col)
+  */
+  public void add(int row, int col, long delta) {
+    if (row < 0 || row >= rows || col < 0 || col >= cols) { return; }
+    for (int i = row+1; i <= rows; i = FenwickIndex.parent(i)) {
+      for (int j = col+1; j <= cols; j = FenwickIndex.parent(j)) {
+        tree[slot(i,j)] += delta;
+      }
+    }
+  }
+
+  /**
+  * Retrieve value of cell (row,col), 0 if out of bounds
+  */
+  public long get(int row, int col) {
+    return rangeSum(row,col,row,col);
+  }
+
+  /**
+  * Retrieve sum of cells in rows [0,row] and columns [0,col]
+  */
+  public long prefixSum(int row, int col) {
+    long sum = 0;
+    for (int i = FenwickIndex.slot(row,rows); i > 0; i = FenwickIndex.predecessor(i)) {
+      for (int j = FenwickIndex.slot(col,cols); j > 0; j = FenwickIndex.predecessor(j)) {
+        sum += tree[slot(i,j)];
+      }
+    }
+    return sum;
+  }
+
+  /**
+  * Retrieve sum of cells in rows [rowLow,rowHigh] and columns
+  * [colLow,colHigh]
+  */
+  public long rangeSum(int rowLow, int colLow, int rowHigh, int colHigh) {
+    rowLow = Math.max(rowLow,0);
+    rowHigh = Math.min(rowHigh,rows-1);
+    colLow = Math.max(colLow,0);
+    colHigh = Math.min(colHigh,cols-1);
+    if (rowHigh < rowLow || colHigh < colLow) { return 0; }
+    return prefixSum(rowHigh,colHigh) - prefixSum(rowLow-1,colHigh)
+      - prefixSum(rowHigh,colLow-1) + prefixSum(rowLow-1,colLow-1);
+  }
+
+  /**
+  * Estimate the heap retained by the tree in bytes
+  */
+  public long bytesUsed() {
+    return MemoryEstimator.object(1,8) + MemoryEstimator.array(tree.length,8);
+  }
+
+  private int slot(int i, int j) {
+    return i*(cols+1) + j;
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+/**
+* Long Range Fenwick Tree - Binary indexed trees over a sequence of
+* n long elmts, indexed from 0 to n-1, that allow adding to a whole
+* range as well as summing a range in O(logn) time, by keeping the
+* differences of the sequence in two LongFenwickTrees as
+* FenwickIndex describes
+*/
+public class LongRangeFenwickTree {
+
+  private final int n;
+  private final LongFenwickTree base;
+  private final LongFenwickTree scaled;
+
+  private LongRangeFenwickTree(long[] values) {
+    n = values.length;
+    long[] diffs = new long[n];
+    long[] scaledDiffs = new long[n];
+    for (int j = 0; j < n; j++) {
+      diffs[j] = values[j] - (j > 0 ? values[j-1] : 0);
+      scaledDiffs[j] = diffs[j]*j;
+    }
+    base = LongFenwickTree.build(diffs);
+    scaled = LongFenwickTree.build(scaledDiffs);
+  }
+
+  /**
+  * static factory method - restrict construction to
+  * non-empty sequences only
+  */
+  public static LongRangeFenwickTree build(long[] values) {
+    if (values == null || values.length == 0) {
+      return null;
+    }
+    return new LongRangeFenwickTree(values);
+  }
+
+  /**
+  * Retrieve number of elements in the sequence
+  */
+  public int size() {
+    return n;
+  }
+
+  /**
+  * Add delta to every element in sequence interval [low,high]
+  */
+  public void rangeAdd(int low, int high, long delta) {
+    low = Math.max(low,0);
+    high = Math.min(high,n-1);
+    if (high < low) { return; }
+    base.add(low,delta);
+    base.add(high+1,-delta);
+    scaled.add(low,delta*low);
+    scaled.add(high+1,-delta*(high+1));
+  }
+
+  /**
+  * Add delta to value in sequence at index
+  */
+  public void add(int index, long delta) {
+    if (index < 0 || index >= n) { return; }
+    rangeAdd(index,index,delta);
+  }
+
+  /**
+  * Retrieve value in sequence at index, 0 if out of bounds
+  */
+  public long get(int index) {
+    if (index < 0 || index >= n) { return 0; }
+    return base.prefixSum(index);
+  }
+
+  /**
+  * Retrieve sum of elements in sequence interval [0,index]
+  */
+  public long prefixSum(int index) {
+    index = Math.min(index,n-1);
+    if (index < 0) { return 0; }
+    return (index+1)*base.prefixSum(index) - scaled.prefixSum(index);
+  }
+
+  /**
+  * Retrieve sum of elements in sequence interval [low,high]
+  */
+  public long rangeSum(int low, int high) {
+    low = Math.max(low,0);
+    high = Math.min(high,n-1);
+    if (high < low) { return 0; }
+    return prefixSum(high) - prefixSum(low-1);
+  }
+
+  /**
+  * Estimate the heap retained by the tree in bytes
+  */
+  public long bytesUsed() {
+    return MemoryEstimator.object(2,4) + base.bytesUsed() + scaled.bytesUsed();
+  }
+
+}
\ No newline at end of file
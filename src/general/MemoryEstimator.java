@@ -0,0 +1,40 @@
+/**
+* Memory Estimator - Estimates the heap retained by objects and
+* arrays on a 64 bit JVM with compressed references, that is with
+* 12 byte object headers, 16 byte array headers, 4 byte references
+* and every allocation rounded up to a multiple of 8 bytes. Field
+* reordering by the JVM is assumed to leave no gaps between fields
+*/
+public class MemoryEstimator {
+
+  public static final int HEADER = 12;
+  public static final int ARRAY_HEADER = 16;
+  public static final int REFERENCE = 4;
+  public static final int ALIGNMENT = 8;
+
+  private MemoryEstimator() {}
+
+  /**
+  * Estimate the size of an object with the given number of reference
+  * fields and total bytes of primitive fields
+  */
+  public static long object(int references, int primitiveBytes) {
+    return align(HEADER + (long) references*REFERENCE + primitiveBytes);
+  }
+
+  /**
+  * Estimate the size of an array of length elements, each of which
+  * takes elementBytes (REFERENCE for arrays of objects)
+  */
+  public static long array(long length, int elementBytes) {
+    return align(ARRAY_HEADER + length*elementBytes);
+  }
+
+  /**
+  * Round bytes up to the allocation granularity
+  */
+  private static long align(long bytes) {
+    return (bytes + ALIGNMENT - 1) & -ALIGNMENT;
+  }
+
+}
\ No newline at end of file
@@ -89,4 +89,14 @@ public class UnionFind {
     return this.components;
   }
 
+  /**
+  * estimate heap retained in bytes by the three
+  * arrays and the object holding them
+  */
+  public long bytesUsed() {
+    return MemoryEstimator.object(3,4)
+      + 2*MemoryEstimator.array(ptrs.length,4)
+      + MemoryEstimator.array(ptrs.length,1);
+  }
+
 }
\ No newline at end of file
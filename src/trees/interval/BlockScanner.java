@@ -0,0 +1,83 @@
+/**
+* Block Scanner - Reduces a contiguous run of values to its sum,
+* max or min. Used by BlockedSegmentTree for the partial blocks at
+* either end of a range, where a scan beats descending a tree. The
+* range [from,to) must be non-empty
+*/
+public interface BlockScanner {
+
+	public double sum(double[] values, int from, int to);
+
+	public double max(double[] values, int from, int to);
+
+	public double min(double[] values, int from, int to);
+
+	/**
+	* Scans with four independent accumulators, which keeps the
+	* floating point units busy and leaves the loop open to the
+	* compiler's own vectorization
+	*/
+	public static final BlockScanner SCALAR = new BlockScanner() {
+		public double sum(double[] values, int from, int to) {
+			double s0 = 0.0, s1 = 0.0, s2 = 0.0, s3 = 0.0;
+			int i = from;
+			for (; i+3 < to; i += 4) {
+				s0 += values[i];
+				s1 += values[i+1];
+				s2 += values[i+2];
+				s3 += values[i+3];
+			}
+			for (; i < to; i++) {
+				s0 += values[i];
+			}
+			return (s0 + s1) + (s2 + s3);
+		}
+		public double max(double[] values, int from, int to) {
+			double m0 = values[from], m1 = m0, m2 = m0, m3 = m0;
+			int i = from;
+			for (; i+3 < to; i += 4) {
+				m0 = Math.max(m0,values[i]);
+				m1 = Math.max(m1,values[i+1]);
+				m2 = Math.max(m2,values[i+2]);
+				m3 = Math.max(m3,values[i+3]);
+			}
+			for (; i < to; i++) {
+				m0 = Math.max(m0,values[i]);
+			}
+			return Math.max(Math.max(m0,m1),Math.max(m2,m3));
+		}
+		public double min(double[] values, int from, int to) {
+			double m0 = values[from], m1 = m0, m2 = m0, m3 = m0;
+			int i = from;
+			for (; i+3 < to; i += 4) {
+				m0 = Math.min(m0,values[i]);
+				m1 = Math.min(m1,values[i+1]);
+				m2 = Math.min(m2,values[i+2]);
+				m3 = Math.min(m3,values[i+3]);
+			}
+			for (; i < to; i++) {
+				m0 = Math.min(m0,values[i]);
+			}
+			return Math.min(Math.min(m0,m1),Math.min(m2,m3));
+		}
+	};
+
+	/**
+	* Retrieve the SIMD scanner when VectorBlockScanner, built from the
+	* incubator directory, and the jdk.incubator.vector module are both
+	* present at runtime, otherwise SCALAR. It is loaded by name so that
+	* nothing under src depends on the incubator module
+	*/
+	public static BlockScanner preferred() {
+		try {
+			Class<?> type = Class.forName("VectorBlockScanner");
+			BlockScanner scanner = (BlockScanner) type.getDeclaredConstructor().newInstance();
+			scanner.sum(new double[1],0,1);
+			return scanner;
+		}
+		catch (Exception | LinkageError e) {
+			return SCALAR;
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,172 @@
+/**
+* Blocked Segment Tree - Defined over a sequence of n elmts split
+* into contiguous blocks of BLOCK values. Only the sum, max and min
+* of each block are kept in a bottom-up tree as in FlatSegmentTree,
+* so the tree is BLOCK times smaller and log(BLOCK) levels shorter.
+* The partial blocks at either end of a range are reduced directly
+* from the values by a BlockScanner, using SIMD when the Vector API
+* is available. Allows updating a value, summing a range, max over
+* a range or min over a range to be computed in O(BLOCK+log(n/BLOCK))
+* time
+*/
+public class BlockedSegmentTree {
+
+	public static final int BLOCK = 32;
+	private static final int SHIFT = 5;
+
+	private static final BlockScanner SCANNER = BlockScanner.preferred();
+
+	private final int n;
+	private final int blocks;
+	private final double[] values;
+	private final double[] sum;
+	private final double[] max;
+	private final double[] min;
+
+	private BlockedSegmentTree(double[] values) {
+		n = values.length;
+		blocks = (n+BLOCK-1) >> SHIFT;
+		this.values = values.clone();
+		sum = new double[2*blocks];
+		max = new double[2*blocks];
+		min = new double[2*blocks];
+		for (int b = 0; b < blocks; b++) {
+			scanBlock(b);
+		}
+		for (int i = blocks-1; i > 0; i--) {
+			pull(i);
+		}
+	}
+
+	/**
+	* Restrict construction of segment trees to non-empty sequences only
+	*/
+	public static BlockedSegmentTree build(double[] values) {
+		if (values == null || values.length == 0) {
+			return null;
+		}
+		return new BlockedSegmentTree(values);
+	}
+
+	/**
+	* Retrieve number of elements in the sequence
+	*/
+	public int size() {
+		return n;
+	}
+
+	/**
+	* Retrieve value in sequence at index, 0 if out of bounds
+	*/
+	public double get(int index) {
+		if (index < 0 || index >= n) { return 0; }
+		return values[index];
+	}
+
+	/**
+	* Replace value in sequence at index with delta, rescanning its
+	* block before walking up the tree
+	*/
+	public void update(int index, double delta) {
+		if (index < 0 || index >= n) { return; }
+		values[index] = delta;
+		int b = index >> SHIFT;
+		scanBlock(b);
+		for (int i = (b+blocks) >> 1; i > 0; i >>= 1) {
+			pull(i);
+		}
+	}
+
+	/**
+	* Retrieve sum of elements in sequence interval [low,high]
+	*/
+	public double rangeSum(int low, int high) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low) { return 0; }
+		int first = low >> SHIFT;
+		int last = high >> SHIFT;
+		if (first == last) {
+			return SCANNER.sum(values,low,high+1);
+		}
+		double value = SCANNER.sum(values,low,(first+1) << SHIFT)
+			+ SCANNER.sum(values,last << SHIFT,high+1);
+		for (int l = first+1+blocks, r = last+blocks; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) { value += sum[l++]; }
+			if ((r & 1) == 1) { value += sum[--r]; }
+		}
+		return value;
+	}
+
+	/**
+	* Retrieve max. element in sequence interval [low,high]
+	*/
+	public double rangeMax(int low, int high) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low) { return 0; }
+		int first = low >> SHIFT;
+		int last = high >> SHIFT;
+		if (first == last) {
+			return SCANNER.max(values,low,high+1);
+		}
+		double value = Math.max(SCANNER.max(values,low,(first+1) << SHIFT),
+			SCANNER.max(values,last << SHIFT,high+1));
+		for (int l = first+1+blocks, r = last+blocks; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) { value = Math.max(value,max[l++]); }
+			if ((r & 1) == 1) { value = Math.max(value,max[--r]); }
+		}
+		return value;
+	}
+
+	/**
+	* Retrieve min. element in sequence interval [low,high]
+	*/
+	public double rangeMin(int low, int high) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low) { return 0; }
+		int first = low >> SHIFT;
+		int last = high >> SHIFT;
+		if (first == last) {
+			return SCANNER.min(values,low,high+1);
+		}
+		double value = Math.min(SCANNER.min(values,low,(first+1) << SHIFT),
+			SCANNER.min(values,last << SHIFT,high+1));
+		for (int l = first+1+blocks, r = last+blocks; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) { value = Math.min(value,min[l++]); }
+			if ((r & 1) == 1) { value = Math.min(value,min[--r]); }
+		}
+		return value;
+	}
+
+	/**
+	* Estimate the heap retained by the tree in bytes, the values
+	* themselves plus three aggregates per block
+	*/
+	public long bytesUsed() {
+		return MemoryEstimator.object(4,8) + MemoryEstimator.array(n,8)
+			+ 3*MemoryEstimator.array(2L*blocks,8);
+	}
+
+	/**
+	* Recompute the leaf aggregates of block b from its values
+	*/
+	private void scanBlock(int b) {
+		int from = b << SHIFT;
+		int to = Math.min(from+BLOCK,n);
+		sum[b+blocks] = SCANNER.sum(values,from,to);
+		max[b+blocks] = SCANNER.max(values,from,to);
+		min[b+blocks] = SCANNER.min(values,from,to);
+	}
+
+	/**
+	* Recompute node i from its children
+	*/
+	private void pull(int i) {
+		sum[i] = sum[2*i] + sum[2*i+1];
+		max[i] = Math.max(max[2*i],max[2*i+1]);
+		min[i] = Math.min(min[2*i],min[2*i+1]);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,160 @@
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+* Concurrent Segment Tree - Defined over a sequence of n elmts.
+* Allows any number of threads to update values while others
+* sum, max or min ranges, each in O(logn) time and without locks.
+* Every node holds an immutable aggregate that is replaced by
+* compare and set, so updates to different indices only meet at
+* their common ancestors and never block one another. Queries are
+* weakly consistent : they reflect every update that completed
+* before they began and possibly some that are in progress
+*/
+public class ConcurrentSegmentTree {
+
+	// sum, max and min doubles
+	private static final long NODE_BYTES = MemoryEstimator.object(0,24);
+
+	private final int n;
+	private final AtomicReferenceArray<Aggregate> tree;
+
+	private ConcurrentSegmentTree(double[] values) {
+		n = values.length;
+		Aggregate[] nodes = new Aggregate[2*n];
+		for (int i = 0; i < n; i++) {
+			nodes[i+n] = new Aggregate(values[i]);
+		}
+		for (int i = n-1; i > 0; i--) {
+			nodes[i] = new Aggregate(nodes[2*i],nodes[2*i+1]);
+		}
+		tree = new AtomicReferenceArray<Aggregate>(nodes);
+	}
+
+	/**
+	* Restrict construction of segment trees to non-empty sequences only
+	*/
+	public static ConcurrentSegmentTree build(double[] values) {
+		if (values == null || values.length == 0) {
+			return null;
+		}
+		return new ConcurrentSegmentTree(values);
+	}
+
+	/**
+	* Retrieve number of elements in the sequence
+	*/
+	public int size() {
+		return n;
+	}
+
+	/**
+	* Retrieve value in sequence at index, 0 if out of bounds
+	*/
+	public double get(int index) {
+		if (index < 0 || index >= n) { return 0; }
+		return tree.get(index+n).sum;
+	}
+
+	/**
+	* Replace value in sequence at index with delta. Each ancestor is
+	* refreshed from its children, and a second refresh follows a
+	* failed one, since the refresh that won may have read the
+	* children before this update reached them
+	*/
+	public void update(int index, double delta) {
+		if (index < 0 || index >= n) { return; }
+		int i = index+n;
+		tree.set(i,new Aggregate(delta));
+		for (i >>= 1; i > 0; i >>= 1) {
+			if (!refresh(i)) {
+				refresh(i);
+			}
+		}
+	}
+
+	/**
+	* Retrieve sum of elements in sequence interval [low,high]
+	*/
+	public double rangeSum(int low, int high) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low) { return 0; }
+		double value = 0.0;
+		for (int l = low+n, r = high+n+1; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) { value += tree.get(l++).sum; }
+			if ((r & 1) == 1) { value += tree.get(--r).sum; }
+		}
+		return value;
+	}
+
+	/**
+	* Retrieve max. element in sequence interval [low,high]
+	*/
+	public double rangeMax(int low, int high) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low) { return 0; }
+		double value = -Double.MAX_VALUE;
+		for (int l = low+n, r = high+n+1; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) { value = Math.max(value,tree.get(l++).max); }
+			if ((r & 1) == 1) { value = Math.max(value,tree.get(--r).max); }
+		}
+		return value;
+	}
+
+	/**
+	* Retrieve min. element in sequence interval [low,high]
+	*/
+	public double rangeMin(int low, int high) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low) { return 0; }
+		double value = Double.MAX_VALUE;
+		for (int l = low+n, r = high+n+1; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) { value = Math.min(value,tree.get(l++).min); }
+			if ((r & 1) == 1) { value = Math.min(value,tree.get(--r).min); }
+		}
+		return value;
+	}
+
+	/**
+	* Estimate the heap retained by the tree in bytes, 2n-1 aggregates
+	* and the array holding them
+	*/
+	public long bytesUsed() {
+		return MemoryEstimator.object(1,4) + MemoryEstimator.object(1,0)
+			+ MemoryEstimator.array(2L*n,MemoryEstimator.REFERENCE) + (2L*n-1)*NODE_BYTES;
+	}
+
+	/**
+	* Replace node i with the combination of its children, failing if
+	* another thread replaced it in the meantime
+	*/
+	private boolean refresh(int i) {
+		Aggregate current = tree.get(i);
+		Aggregate fresh = new Aggregate(tree.get(2*i),tree.get(2*i+1));
+		return tree.compareAndSet(i,current,fresh);
+	}
+
+	/**
+	* Immutable sum, max and min of the elements below a node
+	*/
+	private static class Aggregate {
+		private final double sum;
+		private final double max;
+		private final double min;
+
+		private Aggregate(double value) {
+			this.sum = value;
+			this.max = value;
+			this.min = value;
+		}
+
+		private Aggregate(Aggregate left, Aggregate right) {
+			this.sum = left.sum + right.sum;
+			this.max = Math.max(left.max,right.max);
+			this.min = Math.min(left.min,right.min);
+		}
+	}
+
+}
\ No newline at end of file
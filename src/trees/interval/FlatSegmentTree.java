@@ -0,0 +1,129 @@
+/**
+* Flat Segment Tree - Defined over a sequence of n elmts.
+* Keeps the sum, max and min of every node in three flat
+* arrays of 2n doubles, node i having children 2i and 2i+1
+* and the elements sitting at n..2n-1. Node bounds are implicit
+* and updates and queries run bottom-up without recursion in
+* O(logn) time
+*/
+public class FlatSegmentTree {
+
+	private final int n;
+	private final double[] sum;
+	private final double[] max;
+	private final double[] min;
+
+	private FlatSegmentTree(double[] values) {
+		n = values.length;
+		sum = new double[2*n];
+		max = new double[2*n];
+		min = new double[2*n];
+		System.arraycopy(values,0,sum,n,n);
+		System.arraycopy(values,0,max,n,n);
+		System.arraycopy(values,0,min,n,n);
+		for (int i = n-1; i > 0; i--) {
+			pull(i);
+		}
+	}
+
+	/**
+	* Restrict construction of segment trees to non-empty sequences only
+	*/
+	public static FlatSegmentTree build(double[] values) {
+		if (values == null || values.length == 0) {
+			return null;
+		}
+		return new FlatSegmentTree(values);
+	}
+
+	/**
+	* Retrieve number of elements in the sequence
+	*/
+	public int size() {
+		return n;
+	}
+
+	/**
+	* Retrieve value in sequence at index, 0 if out of bounds
+	*/
+	public double get(int index) {
+		if (index < 0 || index >= n) { return 0; }
+		return sum[index+n];
+	}
+
+	/**
+	* Replace value in sequence at index with delta
+	*/
+	public void update(int index, double delta) {
+		if (index < 0 || index >= n) { return; }
+		int i = index+n;
+		sum[i] = delta;
+		max[i] = delta;
+		min[i] = delta;
+		for (i >>= 1; i > 0; i >>= 1) {
+			pull(i);
+		}
+	}
+
+	/**
+	* Retrieve sum of elements in sequence interval [low,high]
+	*/
+	public double rangeSum(int low, int high) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low) { return 0; }
+		double value = 0.0;
+		for (int l = low+n, r = high+n+1; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) { value += sum[l++]; }
+			if ((r & 1) == 1) { value += sum[--r]; }
+		}
+		return value;
+	}
+
+	/**
+	* Retrieve max. element in sequence interval [low,high]
+	*/
+	public double rangeMax(int low, int high) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low) { return 0; }
+		double value = -Double.MAX_VALUE;
+		for (int l = low+n, r = high+n+1; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) { value = Math.max(value,max[l++]); }
+			if ((r & 1) == 1) { value = Math.max(value,max[--r]); }
+		}
+		return value;
+	}
+
+	/**
+	* Retrieve min. element in sequence interval [low,high]
+	*/
+	public double rangeMin(int low, int high) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low) { return 0; }
+		double value = Double.MAX_VALUE;
+		for (int l = low+n, r = high+n+1; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) { value = Math.min(value,min[l++]); }
+			if ((r & 1) == 1) { value = Math.min(value,min[--r]); }
+		}
+		return value;
+	}
+
+	/**
+	* Estimate the heap retained by the tree in bytes
+	*/
+	public long bytesUsed() {
+		return MemoryEstimator.object(3,4) + 3*MemoryEstimator.array(2L*n,8);
+	}
+
+	/**
+	* Recompute node i from its children
+	*/
+	private void pull(int i) {
+		sum[i] = sum[2*i] + sum[2*i+1];
+		max[i] = Math.max(max[2*i],max[2*i+1]);
+		min[i] = Math.min(min[2*i],min[2*i+1]);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,419 @@
+/**
+* Int Segment Tree - Defined over a sequence of n int elmts
+* and an associative operator with an identity element. Allows
+* updating a value and combining the elements of any range in
+* O(logn) time without boxing. The elements are padded with the
+* identity to a power of two and combined strictly left to right,
+* so the operator need not be commutative. Empty ranges combine
+* to the identity
+*/
+public class IntSegmentTree {
+
+	/**
+	* Associative way of combining two elements, x covering the
+	* smaller indices
+	*/
+	public interface Operator {
+		public int combine(int x, int y);
+	}
+
+	/**
+	* Sums wrap around on overflow, use a LongSegmentTree for large sums
+	*/
+	public static final Operator SUM = new Operator() {
+		public int combine(int x, int y) {
+			return x + y;
+		}
+	};
+
+	public static final Operator MIN = new Operator() {
+		public int combine(int x, int y) {
+			return Math.min(x,y);
+		}
+	};
+
+	public static final Operator MAX = new Operator() {
+		public int combine(int x, int y) {
+			return Math.max(x,y);
+		}
+	};
+
+	/**
+	* Gcd of the magnitudes, never negative except when the gcd is
+	* 2^31, as for a range of only 0 and Integer.MIN_VALUE, which wraps to
+	* Integer.MIN_VALUE and is taken as 2^31 again by later combines
+	*/
+	public static final Operator GCD = new Operator() {
+		public int combine(int x, int y) {
+			return gcd(x,y);
+		}
+	};
+
+	public static final Operator XOR = new Operator() {
+		public int combine(int x, int y) {
+			return x ^ y;
+		}
+	};
+
+	public static final Operator OR = new Operator() {
+		public int combine(int x, int y) {
+			return x | y;
+		}
+	};
+
+	private final Operator op;
+	private final int identity;
+	private final int n;
+	private final int leaves;
+	private final int[] tree;
+
+	private IntSegmentTree(int[] values, Operator op, int identity) {
+		this.op = op;
+		this.identity = identity;
+		n = values.length;
+		leaves = n == 1 ? 1 : Integer.highestOneBit(n-1) << 1;
+		tree = new int[2*leaves];
+		System.arraycopy(values,0,tree,leaves,n);
+		for (int i = leaves+n; i < 2*leaves; i++) {
+			tree[i] = identity;
+		}
+		for (int i = leaves-1; i > 0; i--) {
+			tree[i] = op.combine(tree[2*i],tree[2*i+1]);
+		}
+	}
+
+	/**
+	* Build a tree over values combined by op, restricted to non-empty
+	* sequences and a non-null operator. A built-in operator with its
+	* usual identity builds a tree specialized to it
+	*/
+	public static IntSegmentTree build(int[] values, Operator op, int identity) {
+		if (values == null || values.length == 0 || op == null) {
+			return null;
+		}
+		if (op == SUM && identity == 0) {
+			return new Sum(values);
+		}
+		if (op == MIN && identity == Integer.MAX_VALUE) {
+			return new Min(values);
+		}
+		if (op == MAX && identity == Integer.MIN_VALUE) {
+			return new Max(values);
+		}
+		if (op == GCD && identity == 0) {
+			return new Gcd(values);
+		}
+		if (op == XOR && identity == 0) {
+			return new Xor(values);
+		}
+		if (op == OR && identity == 0) {
+			return new Or(values);
+		}
+		return new IntSegmentTree(values,op,identity);
+	}
+
+	public static IntSegmentTree sum(int[] values) {
+		return build(values,SUM,0);
+	}
+
+	public static IntSegmentTree min(int[] values) {
+		return build(values,MIN,Integer.MAX_VALUE);
+	}
+
+	public static IntSegmentTree max(int[] values) {
+		return build(values,MAX,Integer.MIN_VALUE);
+	}
+
+	public static IntSegmentTree gcd(int[] values) {
+		return build(values,GCD,0);
+	}
+
+	public static IntSegmentTree xor(int[] values) {
+		return build(values,XOR,0);
+	}
+
+	public static IntSegmentTree or(int[] values) {
+		return build(values,OR,0);
+	}
+
+	/**
+	* Retrieve number of elements in the sequence
+	*/
+	public int size() {
+		return n;
+	}
+
+	/**
+	* Retrieve identity of the operator, the result of empty ranges
+	*/
+	public int identity() {
+		return identity;
+	}
+
+	/**
+	* Retrieve value in sequence at index, the identity if out of bounds
+	*/
+	public int get(int index) {
+		if (index < 0 || index >= n) { return identity; }
+		return tree[index+leaves];
+	}
+
+	/**
+	* Replace value in sequence at index with value
+	*/
+	public void update(int index, int value) {
+		if (index < 0 || index >= n) { return; }
+		int i = index+leaves;
+		tree[i] = value;
+		for (i >>= 1; i > 0; i >>= 1) {
+			tree[i] = op.combine(tree[2*i],tree[2*i+1]);
+		}
+	}
+
+	/**
+	* Retrieve the combination of elements in sequence interval [low,high]
+	*/
+	public int query(int low, int high) {
+		int l = firstLeaf(low);
+		int r = endLeaf(high);
+		if (r <= l) { return identity; }
+		int left = identity;
+		int right = identity;
+		while (l < r) {
+			if ((l & 1) == 1) { left = op.combine(left,tree[l++]); }
+			if ((r & 1) == 1) { right = op.combine(tree[--r],right); }
+			l >>= 1;
+			r >>= 1;
+		}
+		return op.combine(left,right);
+	}
+
+	/**
+	* Estimate the heap retained by the tree in bytes, shared
+	* operators are not counted
+	*/
+	public long bytesUsed() {
+		return MemoryEstimator.object(2,12) + MemoryEstimator.array(tree.length,4);
+	}
+
+	/**
+	* Retrieve the leaf slot where a query from low begins, clamped to
+	* the sequence so that no index can overflow
+	*/
+	private int firstLeaf(int low) {
+		return Math.min(Math.max(low,0),n)+leaves;
+	}
+
+	/**
+	* Retrieve the leaf slot just past where a query up to high ends,
+	* clamped as firstLeaf is, so an empty range ends no later than it
+	* begins and combines nothing but the identity
+	*/
+	private int endLeaf(int high) {
+		return Math.max(Math.min(high,n-1),-1)+leaves+1;
+	}
+
+	private static int gcd(int x, int y) {
+		// Euclid over non-positive values, which reach every magnitude
+		// including that of Integer.MIN_VALUE, so only the final negation
+		// can overflow
+		x = x > 0 ? -x : x;
+		y = y > 0 ? -y : y;
+		while (y != 0) {
+			int t = x % y;
+			x = y;
+			y = t;
+		}
+		return -x;
+	}
+
+	// ---------------------- Tree Specific Operations --------------------- \\
+
+	/**
+	* Trees for the built-in operators, each with its operator written
+	* into the loops of update and query rather than called through op,
+	* so the JIT sees one operation per call site however many kinds of
+	* tree are in use. The built-in operators are commutative, so a
+	* query folds both ends of the range into one result
+	*/
+	private static final class Sum extends IntSegmentTree {
+
+		private Sum(int[] values) {
+			super(values,SUM,0);
+		}
+
+		public void update(int index, int value) {
+			if (index < 0 || index >= super.n) { return; }
+			int i = index+super.leaves;
+			super.tree[i] = value;
+			for (i >>= 1; i > 0; i >>= 1) {
+				super.tree[i] = super.tree[2*i] + super.tree[2*i+1];
+			}
+		}
+
+		public int query(int low, int high) {
+			int result = 0;
+			int l = super.firstLeaf(low);
+			int r = super.endLeaf(high);
+			while (l < r) {
+				if ((l & 1) == 1) { result += super.tree[l++]; }
+				if ((r & 1) == 1) { result += super.tree[--r]; }
+				l >>= 1;
+				r >>= 1;
+			}
+			return result;
+		}
+
+	}
+
+	private static final class Min extends IntSegmentTree {
+
+		private Min(int[] values) {
+			super(values,MIN,Integer.MAX_VALUE);
+		}
+
+		public void update(int index, int value) {
+			if (index < 0 || index >= super.n) { return; }
+			int i = index+super.leaves;
+			super.tree[i] = value;
+			for (i >>= 1; i > 0; i >>= 1) {
+				super.tree[i] = Math.min(super.tree[2*i],super.tree[2*i+1]);
+			}
+		}
+
+		public int query(int low, int high) {
+			int result = Integer.MAX_VALUE;
+			int l = super.firstLeaf(low);
+			int r = super.endLeaf(high);
+			while (l < r) {
+				if ((l & 1) == 1) { result = Math.min(result,super.tree[l++]); }
+				if ((r & 1) == 1) { result = Math.min(result,super.tree[--r]); }
+				l >>= 1;
+				r >>= 1;
+			}
+			return result;
+		}
+
+	}
+
+	private static final class Max extends IntSegmentTree {
+
+		private Max(int[] values) {
+			super(values,MAX,Integer.MIN_VALUE);
+		}
+
+		public void update(int index, int value) {
+			if (index < 0 || index >= super.n) { return; }
+			int i = index+super.leaves;
+			super.tree[i] = value;
+			for (i >>= 1; i > 0; i >>= 1) {
+				super.tree[i] = Math.max(super.tree[2*i],super.tree[2*i+1]);
+			}
+		}
+
+		public int query(int low, int high) {
+			int result = Integer.MIN_VALUE;
+			int l = super.firstLeaf(low);
+			int r = super.endLeaf(high);
+			while (l < r) {
+				if ((l & 1) == 1) { result = Math.max(result,super.tree[l++]); }
+				if ((r & 1) == 1) { result = Math.max(result,super.tree[--r]); }
+				l >>= 1;
+				r >>= 1;
+			}
+			return result;
+		}
+
+	}
+
+	private static final class Gcd extends IntSegmentTree {
+
+		private Gcd(int[] values) {
+			super(values,GCD,0);
+		}
+
+		public void update(int index, int value) {
+			if (index < 0 || index >= super.n) { return; }
+			int i = index+super.leaves;
+			super.tree[i] = value;
+			for (i >>= 1; i > 0; i >>= 1) {
+				super.tree[i] = IntSegmentTree.gcd(super.tree[2*i],super.tree[2*i+1]);
+			}
+		}
+
+		public int query(int low, int high) {
+			int result = 0;
+			int l = super.firstLeaf(low);
+			int r = super.endLeaf(high);
+			while (l < r) {
+				if ((l & 1) == 1) { result = IntSegmentTree.gcd(result,super.tree[l++]); }
+				if ((r & 1) == 1) { result = IntSegmentTree.gcd(result,super.tree[--r]); }
+				l >>= 1;
+				r >>= 1;
+			}
+			return result;
+		}
+
+	}
+
+	private static final class Xor extends IntSegmentTree {
+
+		private Xor(int[] values) {
+			super(values,XOR,0);
+		}
+
+		public void update(int index, int value) {
+			if (index < 0 || index >= super.n) { return; }
+			int i = index+super.leaves;
+			super.tree[i] = value;
+			for (i >>= 1; i > 0; i >>= 1) {
+				super.tree[i] = super.tree[2*i] ^ super.tree[2*i+1];
+			}
+		}
+
+		public int query(int low, int high) {
+			int result = 0;
+			int l = super.firstLeaf(low);
+			int r = super.endLeaf(high);
+			while (l < r) {
+				if ((l & 1) == 1) { result ^= super.tree[l++]; }
+				if ((r & 1) == 1) { result ^= super.tree[--r]; }
+				l >>= 1;
+				r >>= 1;
+			}
+			return result;
+		}
+
+	}
+
+	private static final class Or extends IntSegmentTree {
+
+		private Or(int[] values) {
+			super(values,OR,0);
+		}
+
+		public void update(int index, int value) {
+			if (index < 0 || index >= super.n) { return; }
+			int i = index+super.leaves;
+			super.tree[i] = value;
+			for (i >>= 1; i > 0; i >>= 1) {
+				super.tree[i] = super.tree[2*i] | super.tree[2*i+1];
+			}
+		}
+
+		public int query(int low, int high) {
+			int result = 0;
+			int l = super.firstLeaf(low);
+			int r = super.endLeaf(high);
+			while (l < r) {
+				if ((l & 1) == 1) { result |= super.tree[l++]; }
+				if ((r & 1) == 1) { result |= super.tree[--r]; }
+				l >>= 1;
+				r >>= 1;
+			}
+			return result;
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,248 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* Interval Tree - A red black tree over closed intervals [low,high]
+* ordered by low endpoint then high endpoint. The tree is a
+* RedBlackTree whose monoid keeps the maximum high endpoint found in
+* every subtree, so its rotations maintain the maxima, and overlap
+* queries skip any subtree that ends before the query begins. Insert,
+* find, delete and finding a single overlap take O(logn) time for a
+* tree on n intervals. Every interval is unique and maps to a value
+*/
+public class IntervalTree<K extends Comparable<K>,V> {
+
+  // three references
+  private static final long SPAN_BYTES = MemoryEstimator.object(3,0);
+
+  private final RedBlackTree<Span<K,V>,Span<K,V>> tree;
+
+  public IntervalTree() {
+    tree = RedBlackTree.<Span<K,V>,Span<K,V>>withMonoid(new Monoid<Span<K,V>,K>() {
+      public K identity() {
+        return null;
+      }
+      public K lift(Span<K,V> span) {
+        return span.high;
+      }
+      public K combine(K x, K y) {
+        return x == null ? y : y == null || x.compareTo(y) >= 0 ? x : y;
+      }
+    });
+  }
+
+  /**
+  * Insert interval [low,high] mapping to value, replacing the value
+  * of an identical interval. Empty intervals (low > high) are ignored
+  */
+  public void insert(K low, K high, V value) {
+    if (low == null || high == null || low.compareTo(high) > 0) { return; }
+    Span<K,V> span = new Span<K,V>(low, high, value);
+    // an identical interval keeps its first span as the node's key
+    // and takes the new one as its value, both with equal endpoints
+    // and so an unchanged maximum, in a single descent
+    tree.put(span, span);
+  }
+
+  /**
+  * Retrieve the value of interval [low,high]
+  */
+  public V find(K low, K high) {
+    if (low == null || high == null) { return null; }
+    Span<K,V> found = tree.find(new Span<K,V>(low, high, null));
+    return found != null ? found.value : null;
+  }
+
+  /**
+  * Delete interval [low,high]
+  */
+  public void delete(K low, K high) {
+    if (low == null || high == null) { return; }
+    tree.delete(new Span<K,V>(low, high, null));
+  }
+
+  /**
+  * Retrieve some interval overlapping [low,high], or null if no
+  * interval in the tree overlaps it. Takes O(logn) time
+  */
+  public Interval<K,V> findOverlap(K low, K high) {
+    if (low == null || high == null || low.compareTo(high) > 0) { return null; }
+    RedBlackTree<Span<K,V>,Span<K,V>> runner = tree.isEmpty() ? null : tree;
+    while (runner != null && !overlaps(runner.getValue(),low,high)) {
+      // if the left subtree reaches low but holds no overlap, every
+      // interval in it starts after high and so does the right subtree
+      RedBlackTree<Span<K,V>,Span<K,V>> left = runner.getLeft();
+      runner = left != null && max(left).compareTo(low) >= 0 ? left : runner.getRight();
+    }
+    return runner != null ? snapshot(runner.getValue()) : null;
+  }
+
+  /**
+  * Retrieve every interval containing point, ordered by low endpoint
+  */
+  public List<Interval<K,V>> stab(K point) {
+    return findAllOverlaps(point,point);
+  }
+
+  /**
+  * Retrieve every interval overlapping [low,high], ordered by low
+  * endpoint, in a single in-order pass along parent links, without
+  * recursion, that skips subtrees whose maximum endpoint is below
+  * low and stops at the first low endpoint above high. Every node visited holds one of the k overlaps, is an
+  * ancestor of one or lies on the path to where the pass stops, so
+  * the query takes O(logn + k) time when the overlaps are adjacent in
+  * low endpoint order, as those starting inside [low,high] always
+  * are. Overlaps starting before low with other intervals between
+  * them each add at most one path, O(logn + klog(n/k)) in all
+  */
+  public List<Interval<K,V>> findAllOverlaps(K low, K high) {
+    List<Interval<K,V>> result = new ArrayList<Interval<K,V>>();
+    if (low == null || high == null || low.compareTo(high) > 0 || tree.isEmpty()) { return result; }
+    RedBlackTree<Span<K,V>,Span<K,V>> node = max(tree).compareTo(low) >= 0 ? descend(tree,low) : null;
+    while (node != null) {
+      // node and everything after it start after high
+      Span<K,V> span = node.getValue();
+      if (span.low.compareTo(high) > 0) {
+        break;
+      }
+      if (span.high.compareTo(low) >= 0) {
+        result.add(snapshot(span));
+      }
+      node = next(node,low);
+    }
+    return result;
+  }
+
+  public boolean isEmpty() {
+    return tree.isEmpty();
+  }
+
+  /**
+  * Retrieve number of intervals in the tree
+  */
+  public int size() {
+    return tree.size();
+  }
+
+  /**
+  * Retrieve the maximum high endpoint of any interval, or null if
+  * the tree is empty
+  */
+  public K getMax() {
+    return tree.isEmpty() ? null : tree.<K>subtreeAggregate();
+  }
+
+  /**
+  * Estimate the heap retained by the tree in bytes, counting its
+  * nodes and one span per interval but not the endpoints and values
+  * they refer to, nor the first span an interval whose value was
+  * replaced still keeps as its key
+  */
+  public long bytesUsed() {
+    return MemoryEstimator.object(1,0) + tree.bytesUsed() + tree.size()*SPAN_BYTES;
+  }
+
+  /**
+  * Snapshot of an interval and its value returned by queries
+  */
+  public static class Interval<K,V> {
+
+    private final K low;
+    private final K high;
+    private final V value;
+
+    private Interval(K low, K high, V value) {
+      this.low = low;
+      this.high = high;
+      this.value = value;
+    }
+
+    public K getLow() {
+      return low;
+    }
+
+    public K getHigh() {
+      return high;
+    }
+
+    public V getValue() {
+      return value;
+    }
+
+  }
+
+  // ---------------------- Tree Specific Operations --------------------- \\
+
+  /**
+  * Interval held by the tree as both key and value of its node,
+  * ordered by low endpoint then high endpoint
+  */
+  private static class Span<K extends Comparable<K>,V> implements Comparable<Span<K,V>> {
+
+    private final K low;
+    private final K high;
+    private V value;
+
+    private Span(K low, K high, V value) {
+      this.low = low;
+      this.high = high;
+      this.value = value;
+    }
+
+    public int compareTo(Span<K,V> other) {
+      int cmp = low.compareTo(other.low);
+      return cmp != 0 ? cmp : high.compareTo(other.high);
+    }
+
+  }
+
+  /**
+  * Retrieve the first node in order of the subtree rooted at node,
+  * skipping left subtrees whose maximum endpoint is below low. The
+  * maximum of node itself must reach low
+  */
+  private RedBlackTree<Span<K,V>,Span<K,V>> descend(RedBlackTree<Span<K,V>,Span<K,V>> node, K low) {
+    RedBlackTree<Span<K,V>,Span<K,V>> left = node.getLeft();
+    while (left != null && max(left).compareTo(low) >= 0) {
+      node = left;
+      left = node.getLeft();
+    }
+    return node;
+  }
+
+  /**
+  * Retrieve the node following node in order whose subtree was not
+  * skipped for a maximum endpoint below low, or null at the end
+  */
+  private RedBlackTree<Span<K,V>,Span<K,V>> next(RedBlackTree<Span<K,V>,Span<K,V>> node, K low) {
+    RedBlackTree<Span<K,V>,Span<K,V>> right = node.getRight();
+    if (right != null && max(right).compareTo(low) >= 0) {
+      return descend(right,low);
+    }
+    RedBlackTree<Span<K,V>,Span<K,V>> parent = node.getParent();
+    while (parent != null && parent.getRight() == node) {
+      node = parent;
+      parent = node.getParent();
+    }
+    return parent;
+  }
+
+  /**
+  * Retrieve the maximum high endpoint in the subtree rooted at node
+  */
+  private K max(RedBlackTree<Span<K,V>,Span<K,V>> node) {
+    return node.<K>subtreeAggregate();
+  }
+
+  /**
+  * Determine whether span overlaps [low,high]
+  */
+  private boolean overlaps(Span<K,V> span, K low, K high) {
+    return span.low.compareTo(high) <= 0 && span.high.compareTo(low) >= 0;
+  }
+
+  private Interval<K,V> snapshot(Span<K,V> span) {
+    return new Interval<K,V>(span.low, span.high, span.value);
+  }
+
+}
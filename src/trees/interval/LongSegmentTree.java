@@ -0,0 +1,455 @@
+/**
+* Long Segment Tree - Defined over a sequence of n long elmts
+* and an associative operator with an identity element. Allows
+* updating a value and combining the elements of any range in
+* O(logn) time without boxing. The elements are padded with the
+* identity to a power of two and combined strictly left to right,
+* so the operator need not be commutative. Empty ranges combine
+* to the identity
+*/
+public class LongSegmentTree {
+
+	/**
+	* Associative way of combining two elements, x covering the
+	* smaller indices
+	*/
+	public interface Operator {
+		public long combine(long x, long y);
+	}
+
+	public static final Operator SUM = new Operator() {
+		public long combine(long x, long y) {
+			return x + y;
+		}
+	};
+
+	public static final Operator MIN = new Operator() {
+		public long combine(long x, long y) {
+			return Math.min(x,y);
+		}
+	};
+
+	public static final Operator MAX = new Operator() {
+		public long combine(long x, long y) {
+			return Math.max(x,y);
+		}
+	};
+
+	/**
+	* Gcd of the magnitudes, never negative except when the gcd is
+	* 2^63, as for a range of only 0 and Long.MIN_VALUE, which wraps to
+	* Long.MIN_VALUE and is taken as 2^63 again by later combines
+	*/
+	public static final Operator GCD = new Operator() {
+		public long combine(long x, long y) {
+			return gcd(x,y);
+		}
+	};
+
+	public static final Operator XOR = new Operator() {
+		public long combine(long x, long y) {
+			return x ^ y;
+		}
+	};
+
+	public static final Operator OR = new Operator() {
+		public long combine(long x, long y) {
+			return x | y;
+		}
+	};
+
+	private final Operator op;
+	private final long identity;
+	private final int n;
+	private final int leaves;
+	private final long[] tree;
+
+	private LongSegmentTree(long[] values, Operator op, long identity) {
+		this.op = op;
+		this.identity = identity;
+		n = values.length;
+		leaves = n == 1 ? 1 : Integer.highestOneBit(n-1) << 1;
+		tree = new long[2*leaves];
+		System.arraycopy(values,0,tree,leaves,n);
+		for (int i = leaves+n; i < 2*leaves; i++) {
+			tree[i] = identity;
+		}
+		for (int i = leaves-1; i > 0; i--) {
+			tree[i] = op.combine(tree[2*i],tree[2*i+1]);
+		}
+	}
+
+	/**
+	* Build a tree over values combined by op, restricted to non-empty
+	* sequences and a non-null operator. A built-in operator with its
+	* usual identity builds a tree specialized to it
+	*/
+	public static LongSegmentTree build(long[] values, Operator op, long identity) {
+		if (values == null || values.length == 0 || op == null) {
+			return null;
+		}
+		if (op == SUM && identity == 0L) {
+			return new Sum(values);
+		}
+		if (op == MIN && identity == Long.MAX_VALUE) {
+			return new Min(values);
+		}
+		if (op == MAX && identity == Long.MIN_VALUE) {
+			return new Max(values);
+		}
+		if (op == GCD && identity == 0L) {
+			return new Gcd(values);
+		}
+		if (op == XOR && identity == 0L) {
+			return new Xor(values);
+		}
+		if (op == OR && identity == 0L) {
+			return new Or(values);
+		}
+		return new LongSegmentTree(values,op,identity);
+	}
+
+	public static LongSegmentTree sum(long[] values) {
+		return build(values,SUM,0L);
+	}
+
+	public static LongSegmentTree min(long[] values) {
+		return build(values,MIN,Long.MAX_VALUE);
+	}
+
+	public static LongSegmentTree max(long[] values) {
+		return build(values,MAX,Long.MIN_VALUE);
+	}
+
+	public static LongSegmentTree gcd(long[] values) {
+		return build(values,GCD,0L);
+	}
+
+	public static LongSegmentTree xor(long[] values) {
+		return build(values,XOR,0L);
+	}
+
+	public static LongSegmentTree or(long[] values) {
+		return build(values,OR,0L);
+	}
+
+	/**
+	* Build a tree whose range query finds the index of the greatest
+	* value, the smallest such index on ties. Elements are packed
+	* value and index pairs combined by MAX, use pack to update them
+	* and index or value to unpack query results
+	*/
+	public static LongSegmentTree argmax(int[] values) {
+		if (values == null || values.length == 0) {
+			return null;
+		}
+		long[] packed = new long[values.length];
+		for (int i = 0; i < values.length; i++) {
+			packed[i] = pack(values[i],i);
+		}
+		return new Max(packed);
+	}
+
+	/**
+	* Pack a value and its index so that greater values, then smaller
+	* indices, compare greater
+	*/
+	public static long pack(int value, int index) {
+		return ((long) value << 32) | (~index & 0xffffffffL);
+	}
+
+	/**
+	* Retrieve index of a packed argmax result, -1 for the identity
+	*/
+	public static int index(long packed) {
+		return packed == Long.MIN_VALUE ? -1 : ~(int) packed;
+	}
+
+	/**
+	* Retrieve value of a packed argmax result
+	*/
+	public static int value(long packed) {
+		return (int) (packed >> 32);
+	}
+
+	/**
+	* Retrieve number of elements in the sequence
+	*/
+	public int size() {
+		return n;
+	}
+
+	/**
+	* Retrieve identity of the operator, the result of empty ranges
+	*/
+	public long identity() {
+		return identity;
+	}
+
+	/**
+	* Retrieve value in sequence at index, the identity if out of bounds
+	*/
+	public long get(int index) {
+		if (index < 0 || index >= n) { return identity; }
+		return tree[index+leaves];
+	}
+
+	/**
+	* Replace value in sequence at index with value
+	*/
+	public void update(int index, long value) {
+		if (index < 0 || index >= n) { return; }
+		int i = index+leaves;
+		tree[i] = value;
+		for (i >>= 1; i > 0; i >>= 1) {
+			tree[i] = op.combine(tree[2*i],tree[2*i+1]);
+		}
+	}
+
+	/**
+	* Retrieve the combination of elements in sequence interval [low,high]
+	*/
+	public long query(int low, int high) {
+		int l = firstLeaf(low);
+		int r = endLeaf(high);
+		if (r <= l) { return identity; }
+		long left = identity;
+		long right = identity;
+		while (l < r) {
+			if ((l & 1) == 1) { left = op.combine(left,tree[l++]); }
+			if ((r & 1) == 1) { right = op.combine(tree[--r],right); }
+			l >>= 1;
+			r >>= 1;
+		}
+		return op.combine(left,right);
+	}
+
+	/**
+	* Estimate the heap retained by the tree in bytes, shared
+	* operators are not counted
+	*/
+	public long bytesUsed() {
+		return MemoryEstimator.object(2,16) + MemoryEstimator.array(tree.length,8);
+	}
+
+	/**
+	* Retrieve the leaf slot where a query from low begins, clamped to
+	* the sequence so that no index can overflow
+	*/
+	private int firstLeaf(int low) {
+		return Math.min(Math.max(low,0),n)+leaves;
+	}
+
+	/**
+	* Retrieve the leaf slot just past where a query up to high ends,
+	* clamped as firstLeaf is, so an empty range ends no later than it
+	* begins and combines nothing but the identity
+	*/
+	private int endLeaf(int high) {
+		return Math.max(Math.min(high,n-1),-1)+leaves+1;
+	}
+
+	private static long gcd(long x, long y) {
+		// Euclid over non-positive values, which reach every magnitude
+		// including that of Long.MIN_VALUE, so only the final negation
+		// can overflow
+		x = x > 0 ? -x : x;
+		y = y > 0 ? -y : y;
+		while (y != 0) {
+			long t = x % y;
+			x = y;
+			y = t;
+		}
+		return -x;
+	}
+
+	// ---------------------- Tree Specific Operations --------------------- \\
+
+	/**
+	* Trees for the built-in operators, each with its operator written
+	* into the loops of update and query rather than called through op,
+	* so the JIT sees one operation per call site however many kinds of
+	* tree are in use. The built-in operators are commutative, so a
+	* query folds both ends of the range into one result
+	*/
+	private static final class Sum extends LongSegmentTree {
+
+		private Sum(long[] values) {
+			super(values,SUM,0L);
+		}
+
+		public void update(int index, long value) {
+			if (index < 0 || index >= super.n) { return; }
+			int i = index+super.leaves;
+			super.tree[i] = value;
+			for (i >>= 1; i > 0; i >>= 1) {
+				super.tree[i] = super.tree[2*i] + super.tree[2*i+1];
+			}
+		}
+
+		public long query(int low, int high) {
+			long result = 0L;
+			int l = super.firstLeaf(low);
+			int r = super.endLeaf(high);
+			while (l < r) {
+				if ((l & 1) == 1) { result += super.tree[l++]; }
+				if ((r & 1) == 1) { result += super.tree[--r]; }
+				l >>= 1;
+				r >>= 1;
+			}
+			return result;
+		}
+
+	}
+
+	private static final class Min extends LongSegmentTree {
+
+		private Min(long[] values) {
+			super(values,MIN,Long.MAX_VALUE);
+		}
+
+		public void update(int index, long value) {
+			if (index < 0 || index >= super.n) { return; }
+			int i = index+super.leaves;
+			super.tree[i] = value;
+			for (i >>= 1; i > 0; i >>= 1) {
+				super.tree[i] = Math.min(super.tree[2*i],super.tree[2*i+1]);
+			}
+		}
+
+		public long query(int low, int high) {
+			long result = Long.MAX_VALUE;
+			int l = super.firstLeaf(low);
+			int r = super.endLeaf(high);
+			while (l < r) {
+				if ((l & 1) == 1) { result = Math.min(result,super.tree[l++]); }
+				if ((r & 1) == 1) { result = Math.min(result,super.tree[--r]); }
+				l >>= 1;
+				r >>= 1;
+			}
+			return result;
+		}
+
+	}
+
+	private static final class Max extends LongSegmentTree {
+
+		private Max(long[] values) {
+			super(values,MAX,Long.MIN_VALUE);
+		}
+
+		public void update(int index, long value) {
+			if (index < 0 || index >= super.n) { return; }
+			int i = index+super.leaves;
+			super.tree[i] = value;
+			for (i >>= 1; i > 0; i >>= 1) {
+				super.tree[i] = Math.max(super.tree[2*i],super.tree[2*i+1]);
+			}
+		}
+
+		public long query(int low, int high) {
+			long result = Long.MIN_VALUE;
+			int l = super.firstLeaf(low);
+			int r = super.endLeaf(high);
+			while (l < r) {
+				if ((l & 1) == 1) { result = Math.max(result,super.tree[l++]); }
+				if ((r & 1) == 1) { result = Math.max(result,super.tree[--r]); }
+				l >>= 1;
+				r >>= 1;
+			}
+			return result;
+		}
+
+	}
+
+	private static final class Gcd extends LongSegmentTree {
+
+		private Gcd(long[] values) {
+			super(values,GCD,0L);
+		}
+
+		public void update(int index, long value) {
+			if (index < 0 || index >= super.n) { return; }
+			int i = index+super.leaves;
+			super.tree[i] = value;
+			for (i >>= 1; i > 0; i >>= 1) {
+				super.tree[i] = LongSegmentTree.gcd(super.tree[2*i],super.tree[2*i+1]);
+			}
+		}
+
+		public long query(int low, int high) {
+			long result = 0L;
+			int l = super.firstLeaf(low);
+			int r = super.endLeaf(high);
+			while (l < r) {
+				if ((l & 1) == 1) { result = LongSegmentTree.gcd(result,super.tree[l++]); }
+				if ((r & 1) == 1) { result = LongSegmentTree.gcd(result,super.tree[--r]); }
+				l >>= 1;
+				r >>= 1;
+			}
+			return result;
+		}
+
+	}
+
+	private static final class Xor extends LongSegmentTree {
+
+		private Xor(long[] values) {
+			super(values,XOR,0L);
+		}
+
+		public void update(int index, long value) {
+			if (index < 0 || index >= super.n) { return; }
+			int i = index+super.leaves;
+			super.tree[i] = value;
+			for (i >>= 1; i > 0; i >>= 1) {
+				super.tree[i] = super.tree[2*i] ^ super.tree[2*i+1];
+			}
+		}
+
+		public long query(int low, int high) {
+			long result = 0L;
+			int l = super.firstLeaf(low);
+			int r = super.endLeaf(high);
+			while (l < r) {
+				if ((l & 1) == 1) { result ^= super.tree[l++]; }
+				if ((r & 1) == 1) { result ^= super.tree[--r]; }
+				l >>= 1;
+				r >>= 1;
+			}
+			return result;
+		}
+
+	}
+
+	private static final class Or extends LongSegmentTree {
+
+		private Or(long[] values) {
+			super(values,OR,0L);
+		}
+
+		public void update(int index, long value) {
+			if (index < 0 || index >= super.n) { return; }
+			int i = index+super.leaves;
+			super.tree[i] = value;
+			for (i >>= 1; i > 0; i >>= 1) {
+				super.tree[i] = super.tree[2*i] | super.tree[2*i+1];
+			}
+		}
+
+		public long query(int low, int high) {
+			long result = 0L;
+			int l = super.firstLeaf(low);
+			int r = super.endLeaf(high);
+			while (l < r) {
+				if ((l & 1) == 1) { result |= super.tree[l++]; }
+				if ((r & 1) == 1) { result |= super.tree[--r]; }
+				l >>= 1;
+				r >>= 1;
+			}
+			return result;
+		}
+
+	}
+
+}
\ No newline at end of file
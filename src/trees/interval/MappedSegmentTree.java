@@ -0,0 +1,252 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+* Mapped Segment Tree - Defined over a sequence of n elmts, n up to
+* the size of the file system. The tree is laid out bottom-up as in
+* FlatSegmentTree, but in a memory-mapped file rather than on the
+* heap, the sum, max and min of node i sitting together in 24 bytes
+* at offset 24i, little-endian on every platform so a file moves
+* between machines. Node 0 holds a header instead, so a tree reopens
+* from its file in O(1) time, the pages being read in on demand.
+* Allows updating a value, summing a range, max over a range or min
+* over a range to be computed in O(logn) time. The file is mapped in
+* chunks, since a single mapping cannot exceed 2GB, and writes reach
+* the disk when the operating system pages them out, on force or on
+* close
+*/
+public class MappedSegmentTree implements AutoCloseable {
+
+	private static final long MAGIC = 0x4d616d6261536567L;
+	private static final int NODE = 24;
+	private static final int SUM = 0;
+	private static final int MAX = 8;
+	private static final int MIN = 16;
+	private static final int CHUNK_SHIFT = 25;
+	private static final long CHUNK_NODES = 1L << CHUNK_SHIFT;
+
+	// the fields of a direct buffer object
+	private static final long BUFFER_BYTES = MemoryEstimator.object(4,40);
+
+	private final long n;
+	private final MappedByteBuffer[] chunks;
+
+	private MappedSegmentTree(FileChannel channel, long n) throws IOException {
+		this.n = n;
+		long nodes = 2*n;
+		chunks = new MappedByteBuffer[(int) ((nodes+CHUNK_NODES-1) >>> CHUNK_SHIFT)];
+		for (int c = 0; c < chunks.length; c++) {
+			long first = (long) c << CHUNK_SHIFT;
+			long size = Math.min(CHUNK_NODES,nodes-first)*NODE;
+			chunks[c] = channel.map(FileChannel.MapMode.READ_WRITE,first*NODE,size);
+			chunks[c].order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+	/**
+	* Create a tree of n elements, all 0, in file, replacing any
+	* existing contents. Returns null if n is not positive or the file
+	* cannot be created
+	*/
+	public static MappedSegmentTree create(Path file, long n) {
+		if (file == null || n <= 0 || n > Long.MAX_VALUE/(2*NODE)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(file,StandardOpenOption.CREATE,
+			StandardOpenOption.TRUNCATE_EXISTING,StandardOpenOption.READ,StandardOpenOption.WRITE)) {
+			MappedSegmentTree tree = new MappedSegmentTree(channel,n);
+			tree.chunks[0].putLong(0,MAGIC);
+			tree.chunks[0].putLong(8,n);
+			return tree;
+		}
+		catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	* Create a tree over values in file, replacing any existing
+	* contents. Returns null for empty sequences or if the file cannot
+	* be created
+	*/
+	public static MappedSegmentTree create(Path file, double[] values) {
+		if (values == null || values.length == 0) {
+			return null;
+		}
+		MappedSegmentTree tree = create(file,values.length);
+		if (tree == null) {
+			return null;
+		}
+		long n = values.length;
+		for (int i = 0; i < values.length; i++) {
+			tree.write(i+n,SUM,values[i]);
+			tree.write(i+n,MAX,values[i]);
+			tree.write(i+n,MIN,values[i]);
+		}
+		for (long i = n-1; i > 0; i--) {
+			tree.pull(i);
+		}
+		return tree;
+	}
+
+	/**
+	* Reopen a tree previously created in file. Returns null if the
+	* file cannot be read or does not hold a tree
+	*/
+	public static MappedSegmentTree open(Path file) {
+		if (file == null) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(file,StandardOpenOption.READ,StandardOpenOption.WRITE)) {
+			if (channel.size() < 2*NODE) {
+				return null;
+			}
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY,0,NODE);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			long n = header.getLong(8);
+			if (header.getLong(0) != MAGIC || n <= 0 || n > Long.MAX_VALUE/(2*NODE)
+				|| channel.size() != 2*n*NODE) {
+				return null;
+			}
+			return new MappedSegmentTree(channel,n);
+		}
+		catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	* Retrieve number of elements in the sequence
+	*/
+	public long size() {
+		return n;
+	}
+
+	/**
+	* Retrieve value in sequence at index, 0 if out of bounds
+	*/
+	public double get(long index) {
+		if (index < 0 || index >= n) { return 0; }
+		return read(index+n,SUM);
+	}
+
+	/**
+	* Replace value in sequence at index with delta
+	*/
+	public void update(long index, double delta) {
+		if (index < 0 || index >= n) { return; }
+		long i = index+n;
+		write(i,SUM,delta);
+		write(i,MAX,delta);
+		write(i,MIN,delta);
+		for (i >>= 1; i > 0; i >>= 1) {
+			pull(i);
+		}
+	}
+
+	/**
+	* Retrieve sum of elements in sequence interval [low,high]
+	*/
+	public double rangeSum(long low, long high) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low) { return 0; }
+		double value = 0.0;
+		for (long l = low+n, r = high+n+1; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) { value += read(l++,SUM); }
+			if ((r & 1) == 1) { value += read(--r,SUM); }
+		}
+		return value;
+	}
+
+	/**
+	* Retrieve max. element in sequence interval [low,high]
+	*/
+	public double rangeMax(long low, long high) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low) { return 0; }
+		double value = -Double.MAX_VALUE;
+		for (long l = low+n, r = high+n+1; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) { value = Math.max(value,read(l++,MAX)); }
+			if ((r & 1) == 1) { value = Math.max(value,read(--r,MAX)); }
+		}
+		return value;
+	}
+
+	/**
+	* Retrieve min. element in sequence interval [low,high]
+	*/
+	public double rangeMin(long low, long high) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low) { return 0; }
+		double value = Double.MAX_VALUE;
+		for (long l = low+n, r = high+n+1; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) { value = Math.min(value,read(l++,MIN)); }
+			if ((r & 1) == 1) { value = Math.min(value,read(--r,MIN)); }
+		}
+		return value;
+	}
+
+	/**
+	* Write every modified page back to the file
+	*/
+	public void force() {
+		for (MappedByteBuffer chunk : chunks) {
+			chunk.force();
+		}
+	}
+
+	/**
+	* Write every modified page back to the file and drop the mappings,
+	* which are unmapped once garbage collected. The tree is unusable
+	* afterwards, any other call failing, but closing again does nothing
+	*/
+	public void close() {
+		for (int c = 0; c < chunks.length; c++) {
+			if (chunks[c] != null) {
+				chunks[c].force();
+				chunks[c] = null;
+			}
+		}
+	}
+
+	/**
+	* Estimate the heap retained by the tree in bytes, which excludes
+	* the mapped file itself
+	*/
+	public long bytesUsed() {
+		return MemoryEstimator.object(1,8) + MemoryEstimator.array(chunks.length,MemoryEstimator.REFERENCE)
+			+ chunks.length*BUFFER_BYTES;
+	}
+
+	/**
+	* Retrieve size of the mapped file in bytes
+	*/
+	public long bytesMapped() {
+		return 2*n*NODE;
+	}
+
+	/**
+	* Recompute node i from its children
+	*/
+	private void pull(long i) {
+		write(i,SUM,read(2*i,SUM) + read(2*i+1,SUM));
+		write(i,MAX,Math.max(read(2*i,MAX),read(2*i+1,MAX)));
+		write(i,MIN,Math.min(read(2*i,MIN),read(2*i+1,MIN)));
+	}
+
+	private double read(long node, int field) {
+		return chunks[(int) (node >>> CHUNK_SHIFT)].getDouble((int) (node & (CHUNK_NODES-1))*NODE + field);
+	}
+
+	private void write(long node, int field, double value) {
+		chunks[(int) (node >>> CHUNK_SHIFT)].putDouble((int) (node & (CHUNK_NODES-1))*NODE + field,value);
+	}
+
+}
\ No newline at end of file
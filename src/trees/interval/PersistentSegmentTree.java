@@ -0,0 +1,206 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* Persistent Segment Tree - Defined over a sequence of n elmts.
+* Every update copies only the O(logn) nodes on the path to its
+* index and shares all others, producing a new version numbered
+* one past the last while every earlier version stays intact.
+* Allows summing a range, max over a range or min over a range of
+* any version to be computed in O(logn) time. Version 0 is the
+* sequence the tree was built from
+*/
+public class PersistentSegmentTree {
+
+	// sum, max, min and two child references
+	private static final long NODE_BYTES = MemoryEstimator.object(2,24);
+
+	private final int n;
+	private final List<PersistentNode> versions;
+	private long nodes;
+
+	private PersistentSegmentTree(double[] values) {
+		n = values.length;
+		versions = new ArrayList<PersistentNode>();
+		versions.add(recursiveBuilder(values,0,n-1));
+	}
+
+	/**
+	* Restrict construction of segment trees to non-empty sequences only
+	*/
+	public static PersistentSegmentTree build(double[] values) {
+		if (values == null || values.length == 0) {
+			return null;
+		}
+		return new PersistentSegmentTree(values);
+	}
+
+	/**
+	* Retrieve number of elements in the sequence
+	*/
+	public int size() {
+		return n;
+	}
+
+	/**
+	* Retrieve the newest version
+	*/
+	public int latestVersion() {
+		return versions.size()-1;
+	}
+
+	/**
+	* Replace value at index in a copy of the newest version with
+	* delta and retrieve the version number of the copy, -1 if index
+	* is out of bounds
+	*/
+	public int update(int index, double delta) {
+		if (index < 0 || index >= n) { return -1; }
+		versions.add(recursiveUpdate(versions.get(versions.size()-1),0,n-1,index,delta));
+		return versions.size()-1;
+	}
+
+	/**
+	* Retrieve value at index in version, 0 if either is out of bounds
+	*/
+	public double get(int version, int index) {
+		return rangeSum(version,index,index);
+	}
+
+	/**
+	* Retrieve sum of elements in sequence interval [low,high] of version
+	*/
+	public double rangeSum(int version, int low, int high) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low || version < 0 || version >= versions.size()) { return 0; }
+		return recursiveRange(versions.get(version),0,n-1,low,high);
+	}
+
+	/**
+	* Retrieve max. element in sequence interval [low,high] of version
+	*/
+	public double rangeMax(int version, int low, int high) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low || version < 0 || version >= versions.size()) { return 0; }
+		return recursiveStat(versions.get(version),0,n-1,low,high,true);
+	}
+
+	/**
+	* Retrieve min. element in sequence interval [low,high] of version
+	*/
+	public double rangeMin(int version, int low, int high) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low || version < 0 || version >= versions.size()) { return 0; }
+		return recursiveStat(versions.get(version),0,n-1,low,high,false);
+	}
+
+	/**
+	* Retrieve sum of elements in sequence interval [low,high] of the
+	* newest version
+	*/
+	public double rangeSum(int low, int high) {
+		return rangeSum(latestVersion(),low,high);
+	}
+
+	/**
+	* Retrieve max. element in sequence interval [low,high] of the
+	* newest version
+	*/
+	public double rangeMax(int low, int high) {
+		return rangeMax(latestVersion(),low,high);
+	}
+
+	/**
+	* Retrieve min. element in sequence interval [low,high] of the
+	* newest version
+	*/
+	public double rangeMin(int low, int high) {
+		return rangeMin(latestVersion(),low,high);
+	}
+
+	/**
+	* Estimate the heap retained by all versions in bytes
+	*/
+	public long bytesUsed() {
+		return MemoryEstimator.object(1,12) + MemoryEstimator.object(1,8)
+			+ MemoryEstimator.array(versions.size(),MemoryEstimator.REFERENCE) + nodes*NODE_BYTES;
+	}
+
+	private PersistentNode recursiveBuilder(double[] values, int low, int high) {
+		nodes++;
+		if (low == high) {
+			return new PersistentNode(values[low]);
+		}
+		int mid = low+(high-low)/2;
+		return new PersistentNode(recursiveBuilder(values,low,mid),recursiveBuilder(values,mid+1,high));
+	}
+
+	private PersistentNode recursiveUpdate(PersistentNode curr, int low, int high, int index, double delta) {
+		nodes++;
+		if (low == high) {
+			return new PersistentNode(delta);
+		}
+		int mid = low+(high-low)/2;
+		if (index <= mid) {
+			return new PersistentNode(recursiveUpdate(curr.left,low,mid,index,delta),curr.right);
+		}
+		return new PersistentNode(curr.left,recursiveUpdate(curr.right,mid+1,high,index,delta));
+	}
+
+	private double recursiveRange(PersistentNode curr, int low, int high, int qlow, int qhigh) {
+		if (qlow > high || qhigh < low) {
+			return 0.0;
+		}
+		if (qlow <= low && qhigh >= high) {
+			return curr.sum;
+		}
+		int mid = low+(high-low)/2;
+		return recursiveRange(curr.left,low,mid,qlow,qhigh)
+			+ recursiveRange(curr.right,mid+1,high,qlow,qhigh);
+	}
+
+	private double recursiveStat(PersistentNode curr, int low, int high, int qlow, int qhigh, boolean op) {
+		if (qlow > high || qhigh < low) {
+			return op ? -Double.MAX_VALUE : Double.MAX_VALUE;
+		}
+		if (qlow <= low && qhigh >= high) {
+			return op ? curr.max : curr.min;
+		}
+		int mid = low+(high-low)/2;
+		double left = recursiveStat(curr.left,low,mid,qlow,qhigh,op);
+		double right = recursiveStat(curr.right,mid+1,high,qlow,qhigh,op);
+		return op ? Math.max(left,right) : Math.min(left,right);
+	}
+
+	/**
+	* Immutable node shared by every version that did not update
+	* an index below it
+	*/
+	private static class PersistentNode {
+		private final double sum;
+		private final double max;
+		private final double min;
+		private final PersistentNode left;
+		private final PersistentNode right;
+
+		private PersistentNode(double value) {
+			this.sum = value;
+			this.max = value;
+			this.min = value;
+			this.left = null;
+			this.right = null;
+		}
+
+		private PersistentNode(PersistentNode left, PersistentNode right) {
+			this.sum = left.sum + right.sum;
+			this.max = Math.max(left.max,right.max);
+			this.min = Math.min(left.min,right.min);
+			this.left = left;
+			this.right = right;
+		}
+	}
+
+}
\ No newline at end of file
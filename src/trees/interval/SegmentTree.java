@@ -1,13 +1,30 @@
 import java.lang.Math.*;
+import java.util.Arrays;
 
 /**
 * Segment Tree - Defined over a sequence of n elmts.
-* Allows updating a value, summing a range, max over a
-* range or min over a range to be computed in O(logn) time
+* Allows updating a value, adding to or assigning a range,
+* summing a range, max over a range or min over a range to
+* be computed in O(logn) time. Range updates are held as
+* lazy tags on the covering nodes and pushed down only when
+* a later operation descends below them
 */
 public class SegmentTree {
 
+	// two ints, five doubles, a flag and the reference to the enclosing tree
+	private static final long NODE_BYTES = MemoryEstimator.object(1,49);
+
 	private SegmentNode[] tree;
+
+	/**
+	* Condition searched for by findFirst, given the max and min of a
+	* range it must return true if an element of the range could
+	* satisfy it, and for a single element max and min are its value.
+	* For instance max > t finds the first element exceeding t
+	*/
+	public interface Predicate {
+		public boolean test(double max, double min);
+	}
 	
 	private SegmentTree(double[] values) {
 		int size = (int)Math.ceil(Math.log(values.length)/Math.log(2));
@@ -32,6 +49,43 @@ public class SegmentTree {
 		recursiveUpdate(index,delta,1);
 	}
 
+	/**
+	* Replace value in sequence at indices[i] with values[i] for every
+	* i, the last value given wins for repeated indices. Every affected
+	* node is recomputed once, so k updates sharing ancestors cost far
+	* less than k calls to update
+	*/
+	public void updateAll(int[] indices, double[] values) {
+		if (indices == null || values == null) { return; }
+		int n = tree[1].high+1;
+		int k = Math.min(indices.length,values.length);
+		long[] order = new long[k];
+		int count = 0;
+		for (int i = 0; i < k; i++) {
+			if (indices[i] >= 0 && indices[i] < n) {
+				order[count++] = ((long) indices[i] << 32) | i;
+			}
+		}
+		Arrays.sort(order,0,count);
+		recursiveUpdateAll(order,values,0,count,1);
+	}
+
+	/**
+	* Add delta to every element in sequence interval [low,high]
+	*/
+	public void rangeAdd(int low, int high, double delta) {
+		if (high < low) { return; }
+		recursiveRangeUpdate(low,high,delta,false,1);
+	}
+
+	/**
+	* Replace every element in sequence interval [low,high] with value
+	*/
+	public void rangeAssign(int low, int high, double value) {
+		if (high < low) { return; }
+		recursiveRangeUpdate(low,high,value,true,1);
+	}
+
 	/**
 	* Retrieve sum of elements in sequence interval [low,high]
 	*/
@@ -56,6 +110,47 @@ public class SegmentTree {
 		return recursiveStat(low,high,1,false);
 	}
 
+	/**
+	* Retrieve the least index whose prefix sum is at least x, -1 if
+	* the whole sequence sums to less. Found by a single descent, which
+	* requires every element to be non-negative
+	*/
+	public int findFirstPrefixSumAtLeast(double x) {
+		if (tree[1].value < x) { return -1; }
+		int curr = 1;
+		while (tree[curr].low != tree[curr].high) {
+			pushDown(curr);
+			if (tree[2*curr].value >= x) {
+				curr = 2*curr;
+			}
+			else {
+				x -= tree[2*curr].value;
+				curr = 2*curr+1;
+			}
+		}
+		return tree[curr].low;
+	}
+
+	/**
+	* Retrieve the least index at or after low whose element satisfies
+	* predicate, -1 if there is none. Subtrees whose max and min fail
+	* predicate are skipped whole, so the search takes O(logn) time
+	*/
+	public int findFirst(int low, Predicate predicate) {
+		if (predicate == null) { return -1; }
+		return recursiveFindFirst(Math.max(low,0),predicate,1);
+	}
+
+	/**
+	* Estimate the heap retained by the tree in bytes. The node array
+	* is padded to a power of two slots but holds only 2n-1 nodes
+	*/
+	public long bytesUsed() {
+		long nodes = 2L*(tree[1].high+1)-1;
+		return MemoryEstimator.object(1,0) + nodes*NODE_BYTES
+			+ MemoryEstimator.array(tree.length,MemoryEstimator.REFERENCE);
+	}
+
 	private void recursiveBuilder(double[] values, int low, int high, int curr) {
 		if (low == high) {
 			tree[curr] = new SegmentNode(low,high,values[low],values[low],values[low]);
@@ -76,17 +171,97 @@ public class SegmentTree {
 			tree[curr].min = tree[curr].value;
 			return;
 		}
+		pushDown(curr);
 		if (index <= tree[2*curr].high) {
 			recursiveUpdate(index,delta,2*curr);
 		}
 		else {
 			recursiveUpdate(index,delta,2*curr+1);
 		}
+		pull(curr);
+	}
+
+	/**
+	* Apply the updates order[from..to), sorted by index with their
+	* position in the batch in the low bits, to the subtree at curr
+	*/
+	private void recursiveUpdateAll(long[] order, double[] values, int from, int to, int curr) {
+		if (from == to) {
+			return;
+		}
+		if (tree[curr].low == tree[curr].high) {
+			double value = values[(int) order[to-1]];
+			tree[curr].value = value;
+			tree[curr].max = value;
+			tree[curr].min = value;
+			return;
+		}
+		pushDown(curr);
+		long bound = (long) (tree[2*curr].high+1) << 32;
+		int split = Arrays.binarySearch(order,from,to,bound);
+		split = split < 0 ? -split-1 : split;
+		recursiveUpdateAll(order,values,from,split,2*curr);
+		recursiveUpdateAll(order,values,split,to,2*curr+1);
+		pull(curr);
+	}
+
+	private void recursiveRangeUpdate(int low, int high, double x, boolean assign, int curr) {
+		if (low > tree[curr].high || high < tree[curr].low) {
+			return;
+		}
+		if (low <= tree[curr].low && high >= tree[curr].high) {
+			if (assign) {
+				tree[curr].assign(x);
+			}
+			else {
+				tree[curr].add(x);
+			}
+			return;
+		}
+		pushDown(curr);
+		recursiveRangeUpdate(low,high,x,assign,2*curr);
+		recursiveRangeUpdate(low,high,x,assign,2*curr+1);
+		pull(curr);
+	}
+
+	/**
+	* Hand the pending tags of an internal node to its children
+	*/
+	private void pushDown(int curr) {
+		SegmentNode node = tree[curr];
+		if (node.assigned) {
+			tree[2*curr].assign(node.assignment);
+			tree[2*curr+1].assign(node.assignment);
+			node.assigned = false;
+		}
+		if (node.pending != 0) {
+			tree[2*curr].add(node.pending);
+			tree[2*curr+1].add(node.pending);
+			node.pending = 0;
+		}
+	}
+
+	/**
+	* Recompute an internal node from its children
+	*/
+	private void pull(int curr) {
 		tree[curr].value = tree[2*curr].value + tree[2*curr+1].value;
 		tree[curr].max = Math.max(tree[2*curr].max,tree[2*curr+1].max);
 		tree[curr].min = Math.min(tree[2*curr].min,tree[2*curr+1].min);
 	}
 
+	private int recursiveFindFirst(int low, Predicate predicate, int curr) {
+		if (tree[curr].high < low || !predicate.test(tree[curr].max,tree[curr].min)) {
+			return -1;
+		}
+		if (tree[curr].low == tree[curr].high) {
+			return tree[curr].low;
+		}
+		pushDown(curr);
+		int index = recursiveFindFirst(low,predicate,2*curr);
+		return index != -1 ? index : recursiveFindFirst(low,predicate,2*curr+1);
+	}
+
 	private double recursiveRange(int low, int high, int curr) {
 		double value = 0.0;
 		if (low <= tree[curr].low && high >= tree[curr].high) {
@@ -95,6 +270,7 @@ public class SegmentTree {
 		else if (low > tree[curr].high || high < tree[curr].low) {
 			return value;
 		}
+		pushDown(curr);
 		if (2*curr < tree.length) {
 			value += recursiveRange(low,high,2*curr);
 		}
@@ -111,13 +287,15 @@ public class SegmentTree {
 		else if (low > tree[curr].high || high < tree[curr].low) {
 			return op ? -Double.MAX_VALUE : Double.MAX_VALUE;
 		}
+		pushDown(curr);
 		double left = recursiveStat(low,high,2*curr,op);
 		double right = recursiveStat(low,high,2*curr+1,op);
 		return op ? Math.max(left,right) : Math.min(left,right);
 	}
 
 	/**
-	* Canonical unit used to construct segment tree
+	* Canonical unit used to construct segment tree. A node never holds
+	* both tags, an addition after an assignment folds into it
 	*/
 	private class SegmentNode {
 		private int low;
@@ -125,6 +303,9 @@ public class SegmentTree {
 		private double value;
 		private double max;
 		private double min;
+		private double pending;
+		private double assignment;
+		private boolean assigned;
 
 		public SegmentNode(int low, int high, double value, double max, double min) {
 			this.low = low;
@@ -133,6 +314,33 @@ public class SegmentTree {
 			this.max = max;
 			this.min = min;
 		}
+
+		/**
+		* Replace every element covered by this node with x
+		*/
+		private void assign(double x) {
+			value = x*(high-low+1);
+			max = x;
+			min = x;
+			assignment = x;
+			assigned = true;
+			pending = 0;
+		}
+
+		/**
+		* Add x to every element covered by this node
+		*/
+		private void add(double x) {
+			value += x*(high-low+1);
+			max += x;
+			min += x;
+			if (assigned) {
+				assignment += x;
+			}
+			else {
+				pending += x;
+			}
+		}
 	}
 
 }
\ No newline at end of file
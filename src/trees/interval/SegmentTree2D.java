@@ -0,0 +1,220 @@
+/**
+* Segment Tree 2D - Defined over a grid of r rows and c columns.
+* A segment tree over the rows whose every node is a segment tree
+* over the columns, both laid out bottom-up as in FlatSegmentTree,
+* so grid node (i,j) aggregates the rows below row node i and the
+* columns below column node j. Allows updating a cell, summing a
+* rectangle, max over a rectangle or min over a rectangle to be
+* computed in O(logr*logc) time
+*/
+public class SegmentTree2D {
+
+	private final int rows;
+	private final int cols;
+	private final double[] sum;
+	private final double[] max;
+	private final double[] min;
+
+	private SegmentTree2D(double[][] grid) {
+		rows = grid.length;
+		cols = grid[0].length;
+		sum = new double[4*rows*cols];
+		max = new double[4*rows*cols];
+		min = new double[4*rows*cols];
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < cols; c++) {
+				int k = slot(r+rows,c+cols);
+				sum[k] = grid[r][c];
+				max[k] = grid[r][c];
+				min[k] = grid[r][c];
+			}
+			for (int j = cols-1; j > 0; j--) {
+				pullColumns(r+rows,j);
+			}
+		}
+		for (int i = rows-1; i > 0; i--) {
+			for (int j = 1; j < 2*cols; j++) {
+				pullRows(i,j);
+			}
+		}
+	}
+
+	/**
+	* Restrict construction to non-empty rectangular grids only
+	*/
+	public static SegmentTree2D build(double[][] grid) {
+		if (grid == null || grid.length == 0 || grid[0] == null || grid[0].length == 0) {
+			return null;
+		}
+		for (double[] row : grid) {
+			if (row == null || row.length != grid[0].length) {
+				return null;
+			}
+		}
+		return new SegmentTree2D(grid);
+	}
+
+	/**
+	* Retrieve number of rows in the grid
+	*/
+	public int rows() {
+		return rows;
+	}
+
+	/**
+	* Retrieve number of columns in the grid
+	*/
+	public int cols() {
+		return cols;
+	}
+
+	/**
+	* Retrieve value of cell (row,col), 0 if out of bounds
+	*/
+	public double get(int row, int col) {
+		if (row < 0 || row >= rows || col < 0 || col >= cols) { return 0; }
+		return sum[slot(row+rows,col+cols)];
+	}
+
+	/**
+	* Replace value of cell (row,col) with delta, then recompute the
+	* column path in the leaf row and in every row ancestor
+	*/
+	public void update(int row, int col, double delta) {
+		if (row < 0 || row >= rows || col < 0 || col >= cols) { return; }
+		int i = row+rows;
+		int k = slot(i,col+cols);
+		sum[k] = delta;
+		max[k] = delta;
+		min[k] = delta;
+		for (int j = (col+cols) >> 1; j > 0; j >>= 1) {
+			pullColumns(i,j);
+		}
+		for (i >>= 1; i > 0; i >>= 1) {
+			for (int j = col+cols; j > 0; j >>= 1) {
+				pullRows(i,j);
+			}
+		}
+	}
+
+	/**
+	* Retrieve sum of cells in rows [rowLow,rowHigh] and columns
+	* [colLow,colHigh]
+	*/
+	public double rangeSum(int rowLow, int colLow, int rowHigh, int colHigh) {
+		rowLow = Math.max(rowLow,0);
+		rowHigh = Math.min(rowHigh,rows-1);
+		colLow = Math.max(colLow,0);
+		colHigh = Math.min(colHigh,cols-1);
+		if (rowHigh < rowLow || colHigh < colLow) { return 0; }
+		double value = 0.0;
+		for (int l = rowLow+rows, r = rowHigh+rows+1; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) { value += rowSum(l++,colLow,colHigh); }
+			if ((r & 1) == 1) { value += rowSum(--r,colLow,colHigh); }
+		}
+		return value;
+	}
+
+	/**
+	* Retrieve max. cell in rows [rowLow,rowHigh] and columns
+	* [colLow,colHigh]
+	*/
+	public double rangeMax(int rowLow, int colLow, int rowHigh, int colHigh) {
+		rowLow = Math.max(rowLow,0);
+		rowHigh = Math.min(rowHigh,rows-1);
+		colLow = Math.max(colLow,0);
+		colHigh = Math.min(colHigh,cols-1);
+		if (rowHigh < rowLow || colHigh < colLow) { return 0; }
+		double value = -Double.MAX_VALUE;
+		for (int l = rowLow+rows, r = rowHigh+rows+1; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) { value = Math.max(value,rowStat(l++,colLow,colHigh,true)); }
+			if ((r & 1) == 1) { value = Math.max(value,rowStat(--r,colLow,colHigh,true)); }
+		}
+		return value;
+	}
+
+	/**
+	* Retrieve min. cell in rows [rowLow,rowHigh] and columns
+	* [colLow,colHigh]
+	*/
+	public double rangeMin(int rowLow, int colLow, int rowHigh, int colHigh) {
+		rowLow = Math.max(rowLow,0);
+		rowHigh = Math.min(rowHigh,rows-1);
+		colLow = Math.max(colLow,0);
+		colHigh = Math.min(colHigh,cols-1);
+		if (rowHigh < rowLow || colHigh < colLow) { return 0; }
+		double value = Double.MAX_VALUE;
+		for (int l = rowLow+rows, r = rowHigh+rows+1; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) { value = Math.min(value,rowStat(l++,colLow,colHigh,false)); }
+			if ((r & 1) == 1) { value = Math.min(value,rowStat(--r,colLow,colHigh,false)); }
+		}
+		return value;
+	}
+
+	/**
+	* Estimate the heap retained by the tree in bytes
+	*/
+	public long bytesUsed() {
+		return MemoryEstimator.object(3,8) + 3*MemoryEstimator.array(4L*rows*cols,8);
+	}
+
+	/**
+	* Sum columns [colLow,colHigh] within row node i
+	*/
+	private double rowSum(int i, int colLow, int colHigh) {
+		double value = 0.0;
+		for (int l = colLow+cols, r = colHigh+cols+1; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) { value += sum[slot(i,l++)]; }
+			if ((r & 1) == 1) { value += sum[slot(i,--r)]; }
+		}
+		return value;
+	}
+
+	/**
+	* Max or min of columns [colLow,colHigh] within row node i
+	*/
+	private double rowStat(int i, int colLow, int colHigh, boolean op) {
+		double[] stat = op ? max : min;
+		double value = op ? -Double.MAX_VALUE : Double.MAX_VALUE;
+		for (int l = colLow+cols, r = colHigh+cols+1; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) {
+				double x = stat[slot(i,l++)];
+				value = op ? Math.max(value,x) : Math.min(value,x);
+			}
+			if ((r & 1) == 1) {
+				double x = stat[slot(i,--r)];
+				value = op ? Math.max(value,x) : Math.min(value,x);
+			}
+		}
+		return value;
+	}
+
+	/**
+	* Recompute grid node (i,j) from its column children
+	*/
+	private void pullColumns(int i, int j) {
+		int k = slot(i,j);
+		int left = slot(i,2*j);
+		int right = left+1;
+		sum[k] = sum[left] + sum[right];
+		max[k] = Math.max(max[left],max[right]);
+		min[k] = Math.min(min[left],min[right]);
+	}
+
+	/**
+	* Recompute grid node (i,j) from its row children
+	*/
+	private void pullRows(int i, int j) {
+		int k = slot(i,j);
+		int upper = slot(2*i,j);
+		int lower = slot(2*i+1,j);
+		sum[k] = sum[upper] + sum[lower];
+		max[k] = Math.max(max[upper],max[lower]);
+		min[k] = Math.min(min[upper],min[lower]);
+	}
+
+	private int slot(int i, int j) {
+		return i*2*cols + j;
+	}
+
+}
\ No newline at end of file
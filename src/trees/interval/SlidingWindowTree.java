@@ -0,0 +1,151 @@
+/**
+* Sliding Window Tree - Keeps the last capacity values appended to
+* a stream in a FlatSegmentTree used as a ring buffer, so appending
+* overwrites the oldest value once the buffer is full. Allows
+* appending a value in O(logcapacity) time, and summing, max or min
+* over the last w values in O(logw) time, as the bottom-up walk stops
+* once the ends of a range meet and a window that wraps around the
+* end of the buffer is split into two ranges. Any w may be asked
+* for, which a two stack or monotonic deque aggregator, amortized
+* O(1) for one fixed window, would not allow
+*/
+public class SlidingWindowTree {
+
+	private final FlatSegmentTree tree;
+	private final int capacity;
+	private int head;
+	private int count;
+
+	private SlidingWindowTree(int capacity) {
+		this.capacity = capacity;
+		tree = FlatSegmentTree.build(new double[capacity]);
+	}
+
+	/**
+	* Restrict construction to positive capacities only
+	*/
+	public static SlidingWindowTree build(int capacity) {
+		if (capacity <= 0) {
+			return null;
+		}
+		return new SlidingWindowTree(capacity);
+	}
+
+	/**
+	* Retrieve maximum number of values held
+	*/
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	* Retrieve number of values held, at most capacity
+	*/
+	public int size() {
+		return count;
+	}
+
+	/**
+	* Append value as the newest in the window, evicting the oldest if
+	* the window is full
+	*/
+	public void append(double value) {
+		tree.update(head,value);
+		head = head+1 == capacity ? 0 : head+1;
+		if (count < capacity) {
+			count++;
+		}
+	}
+
+	/**
+	* Retrieve value appended back steps before the newest, 0 if it
+	* is no longer held
+	*/
+	public double get(int back) {
+		if (back < 0 || back >= count) { return 0; }
+		return tree.get(slot(back));
+	}
+
+	/**
+	* Retrieve sum of the last w values, or of all values held if
+	* fewer than w
+	*/
+	public double windowSum(int w) {
+		w = Math.min(w,count);
+		if (w <= 0) { return 0; }
+		int start = slot(w-1);
+		int end = slot(0);
+		if (start <= end) {
+			return tree.rangeSum(start,end);
+		}
+		return tree.rangeSum(start,capacity-1) + tree.rangeSum(0,end);
+	}
+
+	/**
+	* Retrieve max. of the last w values, or of all values held if
+	* fewer than w
+	*/
+	public double windowMax(int w) {
+		w = Math.min(w,count);
+		if (w <= 0) { return 0; }
+		int start = slot(w-1);
+		int end = slot(0);
+		if (start <= end) {
+			return tree.rangeMax(start,end);
+		}
+		return Math.max(tree.rangeMax(start,capacity-1),tree.rangeMax(0,end));
+	}
+
+	/**
+	* Retrieve min. of the last w values, or of all values held if
+	* fewer than w
+	*/
+	public double windowMin(int w) {
+		w = Math.min(w,count);
+		if (w <= 0) { return 0; }
+		int start = slot(w-1);
+		int end = slot(0);
+		if (start <= end) {
+			return tree.rangeMin(start,end);
+		}
+		return Math.min(tree.rangeMin(start,capacity-1),tree.rangeMin(0,end));
+	}
+
+	/**
+	* Retrieve sum of all values held
+	*/
+	public double sum() {
+		return windowSum(count);
+	}
+
+	/**
+	* Retrieve max. of all values held
+	*/
+	public double max() {
+		return windowMax(count);
+	}
+
+	/**
+	* Retrieve min. of all values held
+	*/
+	public double min() {
+		return windowMin(count);
+	}
+
+	/**
+	* Estimate the heap retained by the window in bytes
+	*/
+	public long bytesUsed() {
+		return MemoryEstimator.object(1,12) + tree.bytesUsed();
+	}
+
+	/**
+	* Retrieve buffer slot of the value appended back steps before
+	* the newest
+	*/
+	private int slot(int back) {
+		int slot = head-1-back;
+		return slot < 0 ? slot+capacity : slot;
+	}
+
+}
\ No newline at end of file
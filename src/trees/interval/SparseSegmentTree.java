@@ -0,0 +1,158 @@
+/**
+* Sparse Segment Tree - Defined over the sequence of every long
+* index in [0,2^63), all elmts starting at 0. Nodes are created
+* only along the paths of updated indices, so k updates take
+* O(k*63) nodes however far apart they lie. Allows updating a
+* value, summing a range, max over a range or min over a range
+* to be computed in O(63) time. A missing subtree stands for a
+* run of zeros and counts as such in every statistic
+*/
+public class SparseSegmentTree {
+
+	// sum, max, min and two child references
+	private static final long NODE_BYTES = MemoryEstimator.object(2,24);
+
+	private final SparseNode root = new SparseNode();
+	private long nodes = 1;
+
+	/**
+	* Retrieve value in sequence at index, 0 if never updated
+	*/
+	public double get(long index) {
+		if (index < 0) { return 0; }
+		SparseNode curr = root;
+		long low = 0;
+		long high = Long.MAX_VALUE;
+		while (curr != null && low < high) {
+			long mid = low+(high-low)/2;
+			if (index <= mid) {
+				curr = curr.left;
+				high = mid;
+			}
+			else {
+				curr = curr.right;
+				low = mid+1;
+			}
+		}
+		return curr != null ? curr.sum : 0;
+	}
+
+	/**
+	* Replace value in sequence at index with delta
+	*/
+	public void update(long index, double delta) {
+		if (index < 0) { return; }
+		recursiveUpdate(root,0,Long.MAX_VALUE,index,delta);
+	}
+
+	/**
+	* Retrieve sum of elements in sequence interval [low,high]
+	*/
+	public double rangeSum(long low, long high) {
+		low = Math.max(low,0);
+		if (high < low) { return 0; }
+		return recursiveRange(root,0,Long.MAX_VALUE,low,high);
+	}
+
+	/**
+	* Retrieve max. element in sequence interval [low,high]
+	*/
+	public double rangeMax(long low, long high) {
+		low = Math.max(low,0);
+		if (high < low) { return 0; }
+		return recursiveStat(root,0,Long.MAX_VALUE,low,high,true);
+	}
+
+	/**
+	* Retrieve min. element in sequence interval [low,high]
+	*/
+	public double rangeMin(long low, long high) {
+		low = Math.max(low,0);
+		if (high < low) { return 0; }
+		return recursiveStat(root,0,Long.MAX_VALUE,low,high,false);
+	}
+
+	/**
+	* Retrieve number of nodes allocated so far
+	*/
+	public long nodeCount() {
+		return nodes;
+	}
+
+	/**
+	* Estimate the heap retained by the tree in bytes
+	*/
+	public long bytesUsed() {
+		return MemoryEstimator.object(1,8) + nodes*NODE_BYTES;
+	}
+
+	private void recursiveUpdate(SparseNode curr, long low, long high, long index, double delta) {
+		if (low == high) {
+			curr.sum = delta;
+			curr.max = delta;
+			curr.min = delta;
+			return;
+		}
+		long mid = low+(high-low)/2;
+		if (index <= mid) {
+			if (curr.left == null) {
+				curr.left = new SparseNode();
+				nodes++;
+			}
+			recursiveUpdate(curr.left,low,mid,index,delta);
+		}
+		else {
+			if (curr.right == null) {
+				curr.right = new SparseNode();
+				nodes++;
+			}
+			recursiveUpdate(curr.right,mid+1,high,index,delta);
+		}
+		SparseNode left = curr.left;
+		SparseNode right = curr.right;
+		curr.sum = (left != null ? left.sum : 0) + (right != null ? right.sum : 0);
+		curr.max = Math.max(left != null ? left.max : 0,right != null ? right.max : 0);
+		curr.min = Math.min(left != null ? left.min : 0,right != null ? right.min : 0);
+	}
+
+	private double recursiveRange(SparseNode curr, long low, long high, long qlow, long qhigh) {
+		if (curr == null || qlow > high || qhigh < low) {
+			return 0.0;
+		}
+		if (qlow <= low && qhigh >= high) {
+			return curr.sum;
+		}
+		long mid = low+(high-low)/2;
+		return recursiveRange(curr.left,low,mid,qlow,qhigh)
+			+ recursiveRange(curr.right,mid+1,high,qlow,qhigh);
+	}
+
+	private double recursiveStat(SparseNode curr, long low, long high, long qlow, long qhigh, boolean op) {
+		if (qlow > high || qhigh < low) {
+			return op ? -Double.MAX_VALUE : Double.MAX_VALUE;
+		}
+		if (curr == null) {
+			return 0.0;
+		}
+		if (qlow <= low && qhigh >= high) {
+			return op ? curr.max : curr.min;
+		}
+		long mid = low+(high-low)/2;
+		double left = recursiveStat(curr.left,low,mid,qlow,qhigh,op);
+		double right = recursiveStat(curr.right,mid+1,high,qlow,qhigh,op);
+		return op ? Math.max(left,right) : Math.min(left,right);
+	}
+
+	/**
+	* Node covering a range of indices, statistics start at those of
+	* an all zero range
+	*/
+	private static class SparseNode {
+		private double sum;
+		private double max;
+		private double min;
+		private SparseNode left;
+		private SparseNode right;
+	}
+
+}
\ No newline at end of file
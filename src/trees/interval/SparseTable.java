@@ -0,0 +1,94 @@
+/**
+* Sparse Table - Immutable structure over a sequence of n elmts
+* answering max over a range or min over a range in O(1) time.
+* Level k holds the max and min of every run of 2^k elements, so
+* any range is covered by two overlapping runs of its level, which
+* is harmless since max and min ignore repeats. Built in O(nlogn)
+* time and space
+*/
+public class SparseTable {
+
+	private final int n;
+	private final double[][] max;
+	private final double[][] min;
+
+	private SparseTable(double[] values) {
+		n = values.length;
+		int levels = 32-Integer.numberOfLeadingZeros(n);
+		max = new double[levels][];
+		min = new double[levels][];
+		max[0] = values.clone();
+		min[0] = max[0];
+		for (int k = 1; k < levels; k++) {
+			int half = 1 << (k-1);
+			int count = n-(1 << k)+1;
+			max[k] = new double[count];
+			min[k] = new double[count];
+			for (int i = 0; i < count; i++) {
+				max[k][i] = Math.max(max[k-1][i],max[k-1][i+half]);
+				min[k][i] = Math.min(min[k-1][i],min[k-1][i+half]);
+			}
+		}
+	}
+
+	/**
+	* Restrict construction of sparse tables to non-empty sequences only
+	*/
+	public static SparseTable build(double[] values) {
+		if (values == null || values.length == 0) {
+			return null;
+		}
+		return new SparseTable(values);
+	}
+
+	/**
+	* Retrieve number of elements in the sequence
+	*/
+	public int size() {
+		return n;
+	}
+
+	/**
+	* Retrieve value in sequence at index, 0 if out of bounds
+	*/
+	public double get(int index) {
+		if (index < 0 || index >= n) { return 0; }
+		return max[0][index];
+	}
+
+	/**
+	* Retrieve max. element in sequence interval [low,high]
+	*/
+	public double rangeMax(int low, int high) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low) { return 0; }
+		int k = 31-Integer.numberOfLeadingZeros(high-low+1);
+		return Math.max(max[k][low],max[k][high-(1 << k)+1]);
+	}
+
+	/**
+	* Retrieve min. element in sequence interval [low,high]
+	*/
+	public double rangeMin(int low, int high) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low) { return 0; }
+		int k = 31-Integer.numberOfLeadingZeros(high-low+1);
+		return Math.min(min[k][low],min[k][high-(1 << k)+1]);
+	}
+
+	/**
+	* Estimate the heap retained by the table in bytes, level 0 being
+	* shared by max and min
+	*/
+	public long bytesUsed() {
+		long bytes = MemoryEstimator.object(2,4) + 2*MemoryEstimator.array(max.length,MemoryEstimator.REFERENCE)
+			+ MemoryEstimator.array(n,8);
+		for (int k = 1; k < max.length; k++) {
+			bytes += 2*MemoryEstimator.array(max[k].length,8);
+		}
+		return bytes;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,284 @@
+import java.util.Arrays;
+
+/**
+* Wavelet Tree - Immutable structure over a sequence of n elmts
+* answering the k-th smallest element of a range and the number of
+* elements of a range at most x in O(logs) time, for s distinct
+* values. Values are replaced by their ranks among the distinct
+* values, and each level, from the highest bit of the ranks down,
+* stores one bit per element with the elements whose bit is 0
+* stably moved ahead of those whose bit is 1 for the level below
+* (the wavelet matrix layout). Counting the ones before a position
+* takes O(1) time from per-word running counts
+*/
+public class WaveletTree {
+
+	private final int n;
+	private final long[][] bits;
+	private final int[][] ranks;
+	private final int[] zeros;
+	private final double[] doubles;
+	private final long[] longs;
+
+	private WaveletTree(int[] symbols, int distinct, double[] doubles, long[] longs) {
+		this.n = symbols.length;
+		this.doubles = doubles;
+		this.longs = longs;
+		int levels = Math.max(1,32-Integer.numberOfLeadingZeros(distinct-1));
+		bits = new long[levels][];
+		ranks = new int[levels][];
+		zeros = new int[levels];
+		int[] buffer = new int[n];
+		for (int level = levels-1; level >= 0; level--) {
+			long[] words = new long[(n >>> 6)+1];
+			int zeroCount = 0;
+			for (int i = 0; i < n; i++) {
+				if (((symbols[i] >>> level) & 1) == 1) {
+					words[i >>> 6] |= 1L << (i & 63);
+				}
+				else {
+					zeroCount++;
+				}
+			}
+			int[] counts = new int[words.length];
+			for (int w = 1; w < words.length; w++) {
+				counts[w] = counts[w-1] + Long.bitCount(words[w-1]);
+			}
+			int zero = 0;
+			int one = zeroCount;
+			for (int i = 0; i < n; i++) {
+				if (((symbols[i] >>> level) & 1) == 1) {
+					buffer[one++] = symbols[i];
+				}
+				else {
+					buffer[zero++] = symbols[i];
+				}
+			}
+			int[] swap = symbols;
+			symbols = buffer;
+			buffer = swap;
+			bits[level] = words;
+			ranks[level] = counts;
+			zeros[level] = zeroCount;
+		}
+	}
+
+	/**
+	* Restrict construction of wavelet trees to non-empty sequences only
+	*/
+	public static WaveletTree build(double[] values) {
+		if (values == null || values.length == 0) {
+			return null;
+		}
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (i == 0 || Double.compare(sorted[i],sorted[distinct-1]) != 0) {
+				sorted[distinct++] = sorted[i];
+			}
+		}
+		double[] alphabet = Arrays.copyOf(sorted,distinct);
+		int[] symbols = new int[values.length];
+		for (int i = 0; i < values.length; i++) {
+			symbols[i] = Arrays.binarySearch(alphabet,values[i]);
+		}
+		return new WaveletTree(symbols,distinct,alphabet,null);
+	}
+
+	/**
+	* Restrict construction of wavelet trees to non-empty sequences only
+	*/
+	public static WaveletTree build(long[] values) {
+		if (values == null || values.length == 0) {
+			return null;
+		}
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (i == 0 || sorted[i] != sorted[distinct-1]) {
+				sorted[distinct++] = sorted[i];
+			}
+		}
+		long[] alphabet = Arrays.copyOf(sorted,distinct);
+		int[] symbols = new int[values.length];
+		for (int i = 0; i < values.length; i++) {
+			symbols[i] = Arrays.binarySearch(alphabet,values[i]);
+		}
+		return new WaveletTree(symbols,distinct,null,alphabet);
+	}
+
+	/**
+	* Retrieve number of elements in the sequence
+	*/
+	public int size() {
+		return n;
+	}
+
+	/**
+	* Retrieve the k-th smallest element in sequence interval
+	* [low,high], counting from k = 1. Returns 0 if the interval holds
+	* fewer than k elements
+	*/
+	public double kthSmallest(int low, int high, int k) {
+		int rank = kthRank(low,high,k);
+		if (rank < 0) { return 0; }
+		return doubles != null ? doubles[rank] : longs[rank];
+	}
+
+	/**
+	* Retrieve the k-th smallest element in sequence interval
+	* [low,high] as a long, exact for trees built from longs. Returns 0
+	* if the interval holds fewer than k elements
+	*/
+	public long kthSmallestLong(int low, int high, int k) {
+		int rank = kthRank(low,high,k);
+		if (rank < 0) { return 0; }
+		return longs != null ? longs[rank] : (long) doubles[rank];
+	}
+
+	/**
+	* Retrieve number of elements at most x in sequence interval
+	* [low,high], compared as numbers rather than in the total order of
+	* kthSmallest. So -0.0 and 0.0 are equal, NaN elements are never
+	* counted and a NaN x counts nothing
+	*/
+	public int countAtMost(int low, int high, double x) {
+		int bound;
+		if (doubles != null) {
+			bound = upperBound(doubles,x);
+		}
+		else if (x >= Long.MAX_VALUE) {
+			bound = longs.length;
+		}
+		else {
+			// NaN and values below every long count nothing
+			bound = x >= Long.MIN_VALUE ? upperBound(longs,(long) Math.floor(x)) : 0;
+		}
+		return countBelow(low,high,bound);
+	}
+
+	/**
+	* Retrieve number of elements at most x in sequence interval
+	* [low,high], exact for trees built from longs
+	*/
+	public int countAtMost(int low, int high, long x) {
+		if (doubles != null) {
+			return countAtMost(low,high,(double) x);
+		}
+		return countBelow(low,high,upperBound(longs,x));
+	}
+
+	/**
+	* Estimate the heap retained by the tree in bytes
+	*/
+	public long bytesUsed() {
+		long bytes = MemoryEstimator.object(5,4) + 2*MemoryEstimator.array(bits.length,MemoryEstimator.REFERENCE)
+			+ MemoryEstimator.array(zeros.length,4);
+		for (int level = 0; level < bits.length; level++) {
+			bytes += MemoryEstimator.array(bits[level].length,8) + MemoryEstimator.array(ranks[level].length,4);
+		}
+		bytes += doubles != null ? MemoryEstimator.array(doubles.length,8) : MemoryEstimator.array(longs.length,8);
+		return bytes;
+	}
+
+	/**
+	* Retrieve rank of the k-th smallest element in [low,high], -1 if
+	* there is no such element
+	*/
+	private int kthRank(int low, int high, int k) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low || k < 1 || k > high-low+1) { return -1; }
+		int l = low;
+		int r = high+1;
+		k--;
+		int rank = 0;
+		for (int level = bits.length-1; level >= 0; level--) {
+			int l1 = ones(level,l);
+			int r1 = ones(level,r);
+			int zeroCount = (r-l)-(r1-l1);
+			if (k < zeroCount) {
+				l -= l1;
+				r -= r1;
+			}
+			else {
+				k -= zeroCount;
+				rank |= 1 << level;
+				l = zeros[level]+l1;
+				r = zeros[level]+r1;
+			}
+		}
+		return rank;
+	}
+
+	/**
+	* Retrieve number of elements in [low,high] whose rank is below bound
+	*/
+	private int countBelow(int low, int high, int bound) {
+		low = Math.max(low,0);
+		high = Math.min(high,n-1);
+		if (high < low || bound <= 0) { return 0; }
+		if (bound >> bits.length != 0) { return high-low+1; }
+		int l = low;
+		int r = high+1;
+		int count = 0;
+		for (int level = bits.length-1; level >= 0; level--) {
+			int l1 = ones(level,l);
+			int r1 = ones(level,r);
+			if (((bound >>> level) & 1) == 1) {
+				count += (r-l)-(r1-l1);
+				l = zeros[level]+l1;
+				r = zeros[level]+r1;
+			}
+			else {
+				l -= l1;
+				r -= r1;
+			}
+		}
+		return count;
+	}
+
+	/**
+	* Retrieve number of ones among the first i bits of level
+	*/
+	private int ones(int level, int i) {
+		return ranks[level][i >>> 6] + Long.bitCount(bits[level][i >>> 6] & ((1L << (i & 63))-1));
+	}
+
+	/**
+	* Retrieve number of values in sorted at most x. NaN sorts last and
+	* compares false, so the values at most x are still a prefix
+	*/
+	private static int upperBound(double[] sorted, double x) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int mid = (low+high) >>> 1;
+			if (sorted[mid] <= x) {
+				low = mid+1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static int upperBound(long[] sorted, long x) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int mid = (low+high) >>> 1;
+			if (sorted[mid] <= x) {
+				low = mid+1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,289 @@
+import java.util.Arrays;
+
+/**
+* Adaptive Tree - A binary search tree that samples its own
+* workload and migrates its contents between implementations at
+* runtime. Skewed reads are served by a splay tree, read heavy
+* workloads by a scapegoat tree (no balancing metadata per node)
+* and mixed workloads by a red black tree. Every key is unique
+* and maps to a corresponding value. A migration runs inside the
+* operation that closes a sampling window, which may be a read, and
+* pauses it for O(n) time, amortized over the window of at least n
+* operations before it. Cursors count the writes made through them
+* and follow their entry onto the tree a migration builds
+*/
+public class AdaptiveTree<K extends Comparable<K>,V extends Comparable<V>> implements MambaTree<K,V> {
+
+  // minimum number of operations in a sampling window
+  private static final int WINDOW = 4096;
+  // number of slots in the table of recently read keys
+  private static final int HOT_BITS = 6;
+  // minimum number of entries before reads may be judged skewed, as
+  // the table of recently read keys holds most keys of smaller trees
+  // and even uniform reads there keep hitting it
+  private static final int SPLAY_SIZE = 8 << HOT_BITS;
+  // four references and three ints
+  private static final long BASE_BYTES = MemoryEstimator.object(4,12)
+    + MemoryEstimator.array(1 << HOT_BITS, 4);
+
+  private MambaTree<K,V> tree;
+  private TreeType mode;
+  private TreeType candidate;
+
+  private int reads;
+  private int writes;
+  private int hits;
+  private final int[] hot;
+
+  public AdaptiveTree() {
+    this.tree = new RedBlackTree<K,V>();
+    this.mode = TreeType.RED_BLACK;
+    this.candidate = TreeType.RED_BLACK;
+    this.hot = new int[1 << HOT_BITS];
+  }
+
+  public void insert(K key, V value) {
+    put(key, value);
+  }
+
+  public V put(K key, V value) {
+    if (key == null) { return null; }
+    V old = tree.put(key, value);
+    writes++;
+    sample();
+    return old;
+  }
+
+  public V find(K key) {
+    if (key == null) { return null; }
+    recordRead(key);
+    return tree.find(key);
+  }
+
+  public void delete(K key) {
+    if (key == null) { return; }
+    tree.delete(key);
+    writes++;
+    sample();
+  }
+
+  public boolean isEmpty() {
+    return tree.isEmpty();
+  }
+
+  public K getKey() {
+    return tree.getKey();
+  }
+
+  public V getValue() {
+    return tree.getValue();
+  }
+
+  public MambaTree<?,?> getParent() {
+    return null;
+  }
+  public MambaTree<?,?> getRight() {
+    return tree.getRight();
+  }
+  public MambaTree<?,?> getLeft() {
+    return tree.getLeft();
+  }
+
+  public MambaCursor<K,V> seek(K key) {
+    if (key == null) { return null; }
+    recordRead(key);
+    return wrap(tree.seek(key));
+  }
+
+  public MambaCursor<K,V> seekCeiling(K key) {
+    if (key == null) { return null; }
+    recordRead(key);
+    return wrap(tree.seekCeiling(key));
+  }
+
+  public MambaCursor<K,V> seekFloor(K key) {
+    if (key == null) { return null; }
+    recordRead(key);
+    return wrap(tree.seekFloor(key));
+  }
+
+  public MambaCursor<K,V> seekFirst() {
+    recordRead(null);
+    return wrap(tree.seekFirst());
+  }
+
+  public MambaCursor<K,V> seekLast() {
+    recordRead(null);
+    return wrap(tree.seekLast());
+  }
+
+  public int size() {
+    return tree.size();
+  }
+
+  public long bytesUsed() {
+    return BASE_BYTES + tree.bytesUsed();
+  }
+
+  // ---------------------- Tree Specific Operations --------------------- \\
+
+  /**
+  * Count a read of key, noting whether it was read recently, or of
+  * an end of the tree when key is null. Sampling runs before the
+  * read is served so the read never waits on a stale tree
+  */
+  private void recordRead(K key) {
+    reads++;
+    if (key == null) {
+      sample();
+      return;
+    }
+    int h = key.hashCode() * 0x9E3779B9;
+    int slot = h >>> (32 - HOT_BITS);
+    if (hot[slot] == h) {
+      hits++;
+    }
+    else {
+      hot[slot] = h;
+    }
+    sample();
+  }
+
+  /**
+  * Close the sampling window once it has seen enough operations and
+  * pick the implementation suited to the observed workload. A window
+  * spans at least as many operations as the tree holds entries, so
+  * the linear cost of a migration is amortized over the window. The same
+  * choice must win two windows in a row before migrating, which keeps
+  * a workload on the boundary from bouncing between implementations
+  */
+  private void sample() {
+    int ops = reads + writes;
+    if (ops < WINDOW || ops < tree.size()) {
+      return;
+    }
+    TreeType choice;
+    if (2*reads >= ops && 2*hits >= reads && tree.size() >= SPLAY_SIZE) {
+      choice = TreeType.SPLAY;
+    }
+    else if (10*reads >= 9*ops) {
+      choice = TreeType.SCAPEGOAT;
+    }
+    else {
+      choice = TreeType.RED_BLACK;
+    }
+    if (choice != mode && choice == candidate) {
+      migrate(choice);
+    }
+    candidate = choice;
+    reads = 0;
+    writes = 0;
+    hits = 0;
+  }
+
+  /**
+  * Move the contents of the current tree into a new tree of the given
+  * kind using an in-order walk followed by a linear time sorted rebuild
+  */
+  @SuppressWarnings("unchecked")
+  private void migrate(TreeType target) {
+    K[] keys = (K[]) new Comparable<?>[16];
+    V[] values = (V[]) new Comparable<?>[16];
+    int size = 0;
+    MambaTree<?,?>[] stack = new MambaTree<?,?>[64];
+    int top = 0;
+    MambaTree<?,?> runner = tree.isEmpty() ? null : tree;
+    while (runner != null || top > 0) {
+      while (runner != null) {
+        if (top == stack.length) {
+          stack = Arrays.copyOf(stack, 2*top);
+        }
+        stack[top++] = runner;
+        runner = runner.getLeft();
+      }
+      runner = stack[--top];
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, 2*size);
+        values = Arrays.copyOf(values, 2*size);
+      }
+      keys[size] = (K) runner.getKey();
+      values[size] = (V) runner.getValue();
+      size++;
+      runner = runner.getRight();
+    }
+    tree = target.load(keys, values, size);
+    mode = target;
+  }
+
+  private MambaCursor<K,V> wrap(MambaCursor<K,V> cursor) {
+    return cursor != null ? new Cursor(cursor) : null;
+  }
+
+  /**
+  * Cursor over the current tree counting the writes made through it.
+  * Writes only sample on the next operation on the tree, so a
+  * migration never runs under the cursor making the write
+  */
+  private class Cursor implements MambaCursor<K,V> {
+
+    private MambaCursor<K,V> cursor;
+    // tree the cursor walks, left behind by any migration since
+    private MambaTree<K,V> owner;
+
+    private Cursor(MambaCursor<K,V> cursor) {
+      this.cursor = cursor;
+      this.owner = tree;
+    }
+
+    public boolean isValid() {
+      return current() != null && cursor.isValid();
+    }
+
+    public K getKey() {
+      return current() != null ? cursor.getKey() : null;
+    }
+
+    public V getValue() {
+      return current() != null ? cursor.getValue() : null;
+    }
+
+    public void setValue(V value) {
+      if (current() == null) { return; }
+      writes++;
+      cursor.setValue(value);
+    }
+
+    public boolean next() {
+      return current() != null && cursor.next();
+    }
+
+    public boolean prev() {
+      return current() != null && cursor.prev();
+    }
+
+    public boolean remove() {
+      if (current() == null) { return false; }
+      writes++;
+      return cursor.remove();
+    }
+
+    /**
+    * Retrieve the cursor, first seeking its entry in the tree the
+    * contents migrated to. A cursor past either end stays there, and
+    * one whose entry was deleted since becomes invalid for good, null
+    * being returned
+    */
+    private MambaCursor<K,V> current() {
+      if (owner != tree && cursor != null) {
+        owner = tree;
+        K key = cursor.getKey();
+        if (key != null) {
+          cursor = tree.seek(key);
+        }
+      }
+      return cursor;
+    }
+
+  }
+
+}
\ No newline at end of file
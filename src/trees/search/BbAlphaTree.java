@@ -1,3 +1,6 @@
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
+
 /**
 * BB Alpha Tree - A weight balanced binary
 * search tree that achieves amortized complexity
@@ -7,6 +10,9 @@
 */
 public class BbAlphaTree<K extends Comparable<K>, V extends Comparable<V>> implements MambaTree<K,V> {
 
+	// five references, an int and a double
+	private static final long NODE_BYTES = MemoryEstimator.object(5,12);
+
 	private BbAlphaTree<K,V> parent;
 	private BbAlphaTree<K,V> left;
 	private BbAlphaTree<K,V> right;
@@ -35,16 +41,21 @@ public class BbAlphaTree<K extends Comparable<K>, V extends Comparable<V>> imple
 	}
 
 	 public void insert(K key, V value) {
-		if (key == null || this.parent != null) { return; }
+		put(key, value);
+	}
+
+	 public V put(K key, V value) {
+		if (key == null || this.parent != null) { return null; }
 		if (this.key == null) {
 			this.key = key;
 			this.value = value;
 			this.weight = 1;
-			return;
+			return null;
 		}
 		BbAlphaTree<K,V> curr = this;
 		while (true) {
-			if (curr.key.compareTo(key) < 0) {
+			int cmp = curr.key.compareTo(key);
+			if (cmp < 0) {
 				if (curr.right == null) {
 					BbAlphaTree<K,V> node = new BbAlphaTree<K,V>(key, value, curr, 1);
 					curr.right = node;
@@ -52,7 +63,7 @@ public class BbAlphaTree<K extends Comparable<K>, V extends Comparable<V>> imple
 				}
 				curr = curr.right;
 			}
-			else if (curr.key.compareTo(key) > 0) {
+			else if (cmp > 0) {
 				if (curr.left == null) {
 					BbAlphaTree<K,V> node = new BbAlphaTree<K,V>(key, value, curr, 1);
 					curr.left = node;
@@ -61,14 +72,16 @@ public class BbAlphaTree<K extends Comparable<K>, V extends Comparable<V>> imple
 				curr = curr.left;
 			}
 			else {
+				V old = curr.value;
 				curr.value = value;
-				return;
+				return old;
 			}
 		}
 		BbAlphaTree<K,V> target = balancer(curr,1);
 		if (target != null) {
 			fixTree(target);
 		}
+		return null;
 	}
 
 	public V find(K key) {
@@ -81,31 +94,7 @@ public class BbAlphaTree<K extends Comparable<K>, V extends Comparable<V>> imple
 		if (key == null || this.key == null || this.parent != null) { return; }
 		BbAlphaTree<K,V> runner = findNode(key);
 		if (runner != null) {
-			if (isLeaf(runner) && runner == this) { 
-				this.key = null;
-				this.weight = 0;
-				return;
-			}
-			else if (runner.left != null && runner.right != null) {
-				BbAlphaTree<K,V> swapTarget = runner.left == null 
-					? findMinimum(runner.right) : findMaximum(runner.left);
-				swap(swapTarget,runner);
-				runner = swapTarget;
-			}
-			if (runner == this) {
-				swapRoot();
-				return;
-			}
-			if (runner.left != null) {
-				routeParent(runner,runner.left);
-			}
-			else {
-				routeParent(runner,runner.right);
-			}
-			runner = balancer(runner.parent,-1);
-			if (runner != null) {
-				fixTree(runner);
-			}
+			deleteNode(runner);
 		}
 	}
 
@@ -131,6 +120,68 @@ public class BbAlphaTree<K extends Comparable<K>, V extends Comparable<V>> imple
 		return left;
 	} 
 
+	public MambaCursor<K,V> seek(K key) {
+		if (key == null || this.key == null || this.parent != null) { return null; }
+		BbAlphaTree<K,V> runner = findNode(key);
+		return runner != null ? new Cursor(runner) : null;
+	}
+
+	public MambaCursor<K,V> seekCeiling(K key) {
+		if (key == null || this.key == null || this.parent != null) { return null; }
+		BbAlphaTree<K,V> runner = findBound(key,true);
+		return runner != null ? new Cursor(runner) : null;
+	}
+
+	public MambaCursor<K,V> seekFloor(K key) {
+		if (key == null || this.key == null || this.parent != null) { return null; }
+		BbAlphaTree<K,V> runner = findBound(key,false);
+		return runner != null ? new Cursor(runner) : null;
+	}
+
+	public MambaCursor<K,V> seekFirst() {
+		if (this.key == null || this.parent != null) { return null; }
+		return new Cursor(findMinimum(this));
+	}
+
+	public MambaCursor<K,V> seekLast() {
+		if (this.key == null || this.parent != null) { return null; }
+		return new Cursor(findMaximum(this));
+	}
+
+	/**
+	* The weight of the root is the number of entries
+	*/
+	public int size() {
+		return this.parent == null ? weight : 0;
+	}
+
+	public long bytesUsed() {
+		return Math.max(weight,1)*NODE_BYTES;
+	}
+
+	/**
+	* Replace the contents of the tree with the first size entries of
+	* keys and values, which must be sorted by strictly increasing key.
+	* Builds a balanced tree in O(n) time
+	*/
+	void loadSorted(K[] keys, V[] values, int size) {
+		if (this.parent != null) { return; }
+		this.left = null;
+		this.right = null;
+		if (size <= 0) {
+			this.key = null;
+			this.value = null;
+			this.weight = 0;
+			return;
+		}
+		int mid = (size-1)/2;
+		this.key = keys[mid];
+		this.value = values[mid];
+		this.weight = size;
+		this.left = buildSorted(keys,values,0,mid-1,this);
+		this.right = buildSorted(keys,values,mid+1,size-1,this);
+	}
+
 	// ---------------------- Tree Specific Operations --------------------- \\
 
 	/**
@@ -324,6 +375,34 @@ public class BbAlphaTree<K extends Comparable<K>, V extends Comparable<V>> imple
 		return save;
 	}
 
+	/**
+	* Build a balanced subtree over the sorted range [low,high]
+	* of keys and values
+	*/
+	private BbAlphaTree<K,V> buildSorted(K[] keys, V[] values, int low, int high,
+		BbAlphaTree<K,V> parent) {
+		if (low > high) {
+			return null;
+		}
+		int mid = low+(high-low)/2;
+		BbAlphaTree<K,V> node = new BbAlphaTree<K,V>(keys[mid], values[mid], parent, (high-low)+1);
+		if (high-low < TreeBuilder.PARALLEL_GRAIN) {
+			node.left = buildSorted(keys,values,low,mid-1,node);
+			node.right = buildSorted(keys,values,mid+1,high,node);
+			return node;
+		}
+		// large ranges build their left half as a fork join task
+		// while this thread builds the right half
+		ForkJoinTask<BbAlphaTree<K,V>> task = ForkJoinTask.adapt(new Callable<BbAlphaTree<K,V>>() {
+			public BbAlphaTree<K,V> call() {
+				return buildSorted(keys,values,low,mid-1,node);
+			}
+		}).fork();
+		node.right = buildSorted(keys,values,mid+1,high,node);
+		node.left = task.join();
+		return node;
+	}
+
 	/**
 	* Determine whether node is a leaf or not
 	*/
@@ -331,20 +410,77 @@ public class BbAlphaTree<K extends Comparable<K>, V extends Comparable<V>> imple
 			return node.left == null && node.right == null;
 	}
 
+	/**
+	* Unlink node from the tree, first swapping it with its nearest
+	* neighbour in key order if it has two children
+	*/
+	private void deleteNode(BbAlphaTree<K,V> runner) {
+		if (isLeaf(runner) && runner == this) { 
+			this.key = null;
+			this.weight = 0;
+			return;
+		}
+		else if (runner.left != null && runner.right != null) {
+			BbAlphaTree<K,V> swapTarget = runner.left == null 
+				? findMinimum(runner.right) : findMaximum(runner.left);
+			swap(swapTarget,runner);
+			runner = swapTarget;
+		}
+		if (runner == this) {
+			swapRoot();
+			return;
+		}
+		if (runner.left != null) {
+			routeParent(runner,runner.left);
+		}
+		else {
+			routeParent(runner,runner.right);
+		}
+		runner = balancer(runner.parent,-1);
+		if (runner != null) {
+			fixTree(runner);
+		}
+	}
+
 	 /**
 	* Find the BbAlphaTree<K,V> whose key matches the given key
 	*/
 	private BbAlphaTree<K,V> findNode(K key) {
 		BbAlphaTree<K,V> runner = this;
 		while (runner != null) {
-			if (runner.key.compareTo(key) == 0) {
+			int cmp = runner.key.compareTo(key);
+			if (cmp == 0) {
 				break;
 			}
-			runner = runner.key.compareTo(key) < 0 ? runner.right : runner.left;
+			runner = cmp < 0 ? runner.right : runner.left;
 		}
 		return runner;
 	}
 
+	/**
+	* Find the BbAlphaTree<K,V> with the least key greater than or equal to key
+	* when ceiling is set, otherwise the greatest key less than or equal
+	*/
+	private BbAlphaTree<K,V> findBound(K key, boolean ceiling) {
+		BbAlphaTree<K,V> runner = this;
+		BbAlphaTree<K,V> bound = null;
+		while (runner != null) {
+			int cmp = runner.key.compareTo(key);
+			if (cmp == 0) {
+				return runner;
+			}
+			if (cmp > 0) {
+				bound = ceiling ? runner : bound;
+				runner = runner.left;
+			}
+			else {
+				bound = ceiling ? bound : runner;
+				runner = runner.right;
+			}
+		}
+		return bound;
+	}
+
 	/**
 	* Retrieve BbAlphaTree<K,V> with maximum value key in
 	* subtree rooted at node
@@ -395,5 +531,93 @@ public class BbAlphaTree<K extends Comparable<K>, V extends Comparable<V>> imple
 			target.parent = base.parent;
 		}
 	}
-	
+
+	/**
+	* Cursor resting on a node of this tree
+	*/
+	private class Cursor implements MambaCursor<K,V> {
+
+		private BbAlphaTree<K,V> node;
+		// key followed by a removed entry, found again on next use
+		private K pending;
+
+		private Cursor(BbAlphaTree<K,V> node) {
+			this.node = node;
+		}
+
+		public boolean isValid() {
+			return node != null || pending != null;
+		}
+
+		public K getKey() {
+			settle();
+			return node != null ? node.key : null;
+		}
+
+		public V getValue() {
+			settle();
+			return node != null ? node.value : null;
+		}
+
+		public void setValue(V value) {
+			settle();
+			if (node != null) {
+				node.value = value;
+			}
+		}
+
+		public boolean next() {
+			settle();
+			if (node == null) { return false; }
+			if (node.right != null) {
+				node = findMinimum(node.right);
+			}
+			else {
+				while (node.parent != null && node.parent.right == node) {
+					node = node.parent;
+				}
+				node = node.parent;
+			}
+			return node != null;
+		}
+
+		public boolean prev() {
+			settle();
+			if (node == null) { return false; }
+			if (node.left != null) {
+				node = findMaximum(node.left);
+			}
+			else {
+				while (node.parent != null && node.parent.left == node) {
+					node = node.parent;
+				}
+				node = node.parent;
+			}
+			return node != null;
+		}
+
+		public boolean remove() {
+			settle();
+			if (node == null) { return false; }
+			// deletion may move keys between nodes, so unlink the node in
+			// place and find the following key again once it is needed
+			BbAlphaTree<K,V> target = node;
+			pending = next() ? node.key : null;
+			node = null;
+			deleteNode(target);
+			return pending != null;
+		}
+
+		/**
+		* Find the node of the key left pending by a removal
+		*/
+		private void settle() {
+			if (pending != null) {
+				node = findNode(pending);
+				pending = null;
+			}
+		}
+
+	}
+
 }
\ No newline at end of file
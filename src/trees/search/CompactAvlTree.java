@@ -0,0 +1,615 @@
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+* Compact AVL Tree - An AVL tree whose nodes hold only a key, a
+* value, two children and a word whose low three bits are the
+* balance, 32 bytes per node with compressed references against 64
+* for an AvlTree node. The rest of the root's word counts the
+* entries, so the tree holds fewer than 2^29 of them.
+* Operations descend iteratively and record their path in a stack
+* shared by every tree on the calling thread, while rotations exchange
+* contents between two nodes in place so no ancestor is ever relinked.
+* Provides insert, find and delete operations in worst case O(logn)
+* time for a tree on n nodes. Every node is uniquely identified by a
+* key (no duplicates in tree), and these keys map to corresponding values.
+* Only the root may be modified, nodes cannot tell that they are not it
+*/
+public class CompactAvlTree<K extends Comparable<K>,V extends Comparable<V>> implements MambaTree<K,V> {
+
+  // an AVL tree on fewer than 2^31 nodes is less than 45 high
+  private static final int MAX_HEIGHT = 64;
+
+  // four references and an int
+  private static final long NODE_BYTES = MemoryEstimator.object(4,4);
+
+  private static final ThreadLocal<CompactAvlTree<?,?>[]> PATH = new ThreadLocal<CompactAvlTree<?,?>[]>() {
+    protected CompactAvlTree<?,?>[] initialValue() {
+      return new CompactAvlTree<?,?>[MAX_HEIGHT];
+    }
+  };
+
+  private K key;
+  private V value;
+
+  private CompactAvlTree<K,V> left;
+  private CompactAvlTree<K,V> right;
+
+  // the low three bits are the balance, which reaches 2/-2 while
+  // rebalancing, the remaining bits of the root's word count the
+  // entries, taking the padding after a byte field
+  private int bits;
+
+  public CompactAvlTree() {}
+
+  private CompactAvlTree(K key, V value, int balance) {
+    this.key = key;
+    this.value = value;
+    this.bits = balance & 7;
+  }
+
+  public void insert(K key, V value) {
+    put(key, value);
+  }
+
+  public V put(K key, V value) {
+    if (key == null) { return null; }
+    if (this.key == null) {
+      this.key = key;
+      this.value = value;
+      // one entry, balanced
+      this.bits = 8;
+      return null;
+    }
+    CompactAvlTree<K,V>[] path = path();
+    CompactAvlTree<K,V> curr = this;
+    int depth = 0;
+    V old = null;
+    while (true) {
+      path[depth] = curr;
+      int cmp = curr.key.compareTo(key);
+      if (cmp == 0) {
+        old = curr.value;
+        curr.value = value;
+        break;
+      }
+      CompactAvlTree<K,V> next = cmp < 0 ? curr.right : curr.left;
+      if (next == null) {
+        next = new CompactAvlTree<K,V>(key, value, 0);
+        if (cmp < 0) {
+          curr.right = next;
+        }
+        else {
+          curr.left = next;
+        }
+        path[++depth] = next;
+        this.bits += 8;
+        fixInsertion(path,depth);
+        break;
+      }
+      curr = next;
+      depth++;
+    }
+    Arrays.fill(path,0,depth+1,null);
+    return old;
+  }
+
+  public V find(K key) {
+    if (key == null || this.key == null) { return null; }
+    CompactAvlTree<K,V> runner = this;
+    while (runner != null) {
+      int cmp = runner.key.compareTo(key);
+      if (cmp == 0) {
+        return runner.value;
+      }
+      runner = cmp < 0 ? runner.right : runner.left;
+    }
+    return null;
+  }
+
+  public void delete(K key) {
+    if (key == null || this.key == null) { return; }
+    CompactAvlTree<K,V>[] path = path();
+    CompactAvlTree<K,V> runner = this;
+    int depth = 0;
+    while (runner != null) {
+      path[depth] = runner;
+      int cmp = runner.key.compareTo(key);
+      if (cmp == 0) {
+        break;
+      }
+      runner = cmp < 0 ? runner.right : runner.left;
+      depth++;
+    }
+    if (runner != null) {
+      depth = deleteAt(path,depth);
+    }
+    Arrays.fill(path,0,depth+1,null);
+  }
+
+  public boolean isEmpty() {
+    return this.key == null;
+  }
+
+  public K getKey() {
+    return key;
+  }
+
+  public V getValue() {
+    return value;
+  }
+
+  /**
+  * Nodes keep no parent reference, so this is always null
+  */
+  public MambaTree<K,V> getParent() {
+    return null;
+  }
+  public MambaTree<K,V> getRight() {
+    return right;
+  }
+  public MambaTree<K,V> getLeft() {
+    return left;
+  }
+
+  public MambaCursor<K,V> seek(K key) {
+    if (key == null || this.key == null) { return null; }
+    Cursor cursor = new Cursor();
+    cursor.depth = findBound(key,true,cursor.stack);
+    if (cursor.depth < 0 || cursor.stack[cursor.depth].key.compareTo(key) != 0) {
+      return null;
+    }
+    return cursor;
+  }
+
+  public MambaCursor<K,V> seekCeiling(K key) {
+    if (key == null || this.key == null) { return null; }
+    Cursor cursor = new Cursor();
+    cursor.depth = findBound(key,true,cursor.stack);
+    return cursor.depth >= 0 ? cursor : null;
+  }
+
+  public MambaCursor<K,V> seekFloor(K key) {
+    if (key == null || this.key == null) { return null; }
+    Cursor cursor = new Cursor();
+    cursor.depth = findBound(key,false,cursor.stack);
+    return cursor.depth >= 0 ? cursor : null;
+  }
+
+  public MambaCursor<K,V> seekFirst() {
+    if (this.key == null) { return null; }
+    return new Cursor().descend(this,true);
+  }
+
+  public MambaCursor<K,V> seekLast() {
+    if (this.key == null) { return null; }
+    return new Cursor().descend(this,false);
+  }
+
+  public int size() {
+    return bits >>> 3;
+  }
+
+  public long bytesUsed() {
+    return Math.max(bits >>> 3,1)*NODE_BYTES;
+  }
+
+
+  /**
+  * Replace the contents of the tree with the first size entries of
+  * keys and values, which must be sorted by strictly increasing key.
+  * Builds a complete tree in O(n) time, the balance of every node
+  * follows from the sizes of its two halves
+  */
+  void loadSorted(K[] keys, V[] values, int size) {
+    this.left = null;
+    this.right = null;
+    if (size <= 0) {
+      this.key = null;
+      this.value = null;
+      this.bits = 0;
+      return;
+    }
+    int mid = (size-1)/2;
+    this.key = keys[mid];
+    this.value = values[mid];
+    this.bits = size << 3 | (height(size-1-mid) - height(mid)) & 7;
+    this.left = buildSorted(keys,values,0,mid-1);
+    this.right = buildSorted(keys,values,mid+1,size-1);
+  }
+
+  // ---------------------- Tree Specific Operations --------------------- \\
+
+  /**
+  * Remove the entry of the node at path[depth], path holding every
+  * node from the root down to it. Returns the last occupied index
+  * of path
+  */
+  private int deleteAt(CompactAvlTree<K,V>[] path, int depth) {
+    CompactAvlTree<K,V> runner = path[depth];
+    this.bits -= 8;
+    // a node with two children takes the entry of its predecessor,
+    // whose node has at most one child and is removed instead
+    if (runner.left != null && runner.right != null) {
+      CompactAvlTree<K,V> target = runner.left;
+      path[++depth] = target;
+      while (target.right != null) {
+        target = target.right;
+        path[++depth] = target;
+      }
+      runner.key = target.key;
+      runner.value = target.value;
+    }
+    fixDeletion(path,depth);
+    return depth;
+  }
+
+  /**
+  * Retrieve the path stack of the calling thread. Every tree on the
+  * thread shares it, but it is emptied after each use, so it only
+  * ever holds nodes of the tree using it
+  */
+  @SuppressWarnings("unchecked")
+  private CompactAvlTree<K,V>[] path() {
+    return (CompactAvlTree<K,V>[]) PATH.get();
+  }
+
+  /**
+  * Allocate a stack deep enough for any path, generic arrays can
+  * only be created with wildcards and cast to the node type
+  */
+  @SuppressWarnings("unchecked")
+  private CompactAvlTree<K,V>[] newStack() {
+    return (CompactAvlTree<K,V>[]) new CompactAvlTree<?,?>[MAX_HEIGHT];
+  }
+
+  /**
+  * After inserting the node at path[depth], walk up the path and
+  * correct balances as needed
+  */
+  private void fixInsertion(CompactAvlTree<K,V>[] path, int depth) {
+    for (int x = depth; x > 0; x--) {
+      CompactAvlTree<K,V> parent = path[x-1];
+      setBalance(parent,balance(parent) + (parent.left == path[x] ? -1 : 1));
+      // case 0 : the balance becomes 0 => height change absorbed => done
+      if (balance(parent) == 0) {
+        return;
+      }
+      // case 1 : the balance became 2/-2 => a single rebalance
+      // restores the height parent had before the insertion
+      if (balance(parent) == 2 || balance(parent) == -2) {
+        rebalance(parent);
+        return;
+      }
+      // case 2 : the balance became 1/-1 => parent grew, keep walking
+    }
+  }
+
+  /**
+  * Remove the node at path[depth], which has at most one child, then
+  * walk up the path updating balances and rebalancing as necessary
+  */
+  private void fixDeletion(CompactAvlTree<K,V>[] path, int depth) {
+    CompactAvlTree<K,V> target = path[depth];
+    CompactAvlTree<K,V> child = target.left != null ? target.left : target.right;
+    // the root cannot be replaced, so it takes over the contents
+    // of its child, which is a leaf by the balance rule
+    if (depth == 0) {
+      if (child == null) {
+        this.key = null;
+        this.value = null;
+        return;
+      }
+      this.key = child.key;
+      this.value = child.value;
+      this.left = null;
+      this.right = null;
+      setBalance(this,0);
+      return;
+    }
+    CompactAvlTree<K,V> parent = path[depth-1];
+    boolean fromLeft = parent.left == target;
+    if (fromLeft) {
+      parent.left = child;
+    }
+    else {
+      parent.right = child;
+    }
+    for (int x = depth-1; x >= 0; x--) {
+      CompactAvlTree<K,V> node = path[x];
+      if (x < depth-1) {
+        fromLeft = node.left == path[x+1];
+      }
+      setBalance(node,balance(node) + (fromLeft ? 1 : -1));
+      // case 1 : balance is 1/-1 => was 0 => height has not changed
+      if (balance(node) == 1 || balance(node) == -1) {
+        return;
+      }
+      // case 2 : balance is 2/-2 => require rebalance, which keeps
+      // the height only if the taller child was itself balanced
+      if (balance(node) != 0) {
+        boolean absorbed = balance(node) == 2 ? balance(node.right) == 0 : balance(node.left) == 0;
+        rebalance(node);
+        if (absorbed) {
+          return;
+        }
+      }
+      // case 3 : node lost a level, its parent must be updated too
+    }
+  }
+
+  /**
+  * Perform rebalancing operation centered on node
+  */
+  private void rebalance(CompactAvlTree<K,V> node) {
+    if (balance(node) == 2) {
+      if (balance(node.right) == -1) {
+        rotateRight(node.right);
+      }
+      rotateLeft(node);
+    }
+    else {
+      if (balance(node.left) == 1) {
+        rotateLeft(node.left);
+      }
+      rotateRight(node);
+    }
+  }
+
+  /**
+  * Perform a right rotation centered on node. Node keeps its place
+  * in the tree and takes the contents of its left child, whose node
+  * moves down to the right holding the former contents of node
+  */
+  private void rotateRight(CompactAvlTree<K,V> node) {
+    CompactAvlTree<K,V> child = node.left;
+    int lower = balance(node)+1+max(0,-balance(child));
+    int upper = balance(child)+1+max(0,lower);
+    node.left = child.left;
+    child.left = child.right;
+    child.right = node.right;
+    node.right = child;
+    swap(node,child);
+    setBalance(child,lower);
+    setBalance(node,upper);
+  }
+
+  /**
+  * Perform a left rotation centered on node. Node keeps its place
+  * in the tree and takes the contents of its right child, whose node
+  * moves down to the left holding the former contents of node
+  */
+  private void rotateLeft(CompactAvlTree<K,V> node) {
+    CompactAvlTree<K,V> child = node.right;
+    int lower = balance(node)-1-max(0,balance(child));
+    int upper = balance(child)-1-max(0,-lower);
+    node.right = child.right;
+    child.right = child.left;
+    child.left = node.left;
+    node.left = child;
+    swap(node,child);
+    setBalance(child,lower);
+    setBalance(node,upper);
+  }
+
+  /**
+  * Find the node with the least key greater than or equal to key
+  * when ceiling is set, otherwise the greatest key less than or
+  * equal. Its ancestors are left in stack, and its index returned,
+  * or -1 if there is no such node
+  */
+  private int findBound(K key, boolean ceiling, CompactAvlTree<K,V>[] stack) {
+    CompactAvlTree<K,V> runner = this;
+    int depth = 0;
+    int bound = -1;
+    while (runner != null) {
+      stack[depth] = runner;
+      int cmp = runner.key.compareTo(key);
+      if (cmp == 0) {
+        return depth;
+      }
+      if (cmp > 0) {
+        bound = ceiling ? depth : bound;
+        runner = runner.left;
+      }
+      else {
+        bound = ceiling ? bound : depth;
+        runner = runner.right;
+      }
+      depth++;
+    }
+    return bound;
+  }
+
+  /**
+  * Build a complete subtree over the sorted range [low,high]
+  * of keys and values
+  */
+  private CompactAvlTree<K,V> buildSorted(K[] keys, V[] values, int low, int high) {
+    if (low > high) {
+      return null;
+    }
+    int mid = low+(high-low)/2;
+    CompactAvlTree<K,V> node = new CompactAvlTree<K,V>(keys[mid], values[mid],
+      height(high-mid) - height(mid-low));
+    if (high-low < TreeBuilder.PARALLEL_GRAIN) {
+      node.left = buildSorted(keys,values,low,mid-1);
+      node.right = buildSorted(keys,values,mid+1,high);
+      return node;
+    }
+    // large ranges build their left half as a fork join task
+    // while this thread builds the right half
+    ForkJoinTask<CompactAvlTree<K,V>> task = ForkJoinTask.adapt(new Callable<CompactAvlTree<K,V>>() {
+      public CompactAvlTree<K,V> call() {
+        return buildSorted(keys,values,low,mid-1);
+      }
+    }).fork();
+    node.right = buildSorted(keys,values,mid+1,high);
+    node.left = task.join();
+    return node;
+  }
+
+  /**
+  * Height of a complete tree holding size nodes
+  */
+  private int height(int size) {
+    return 32 - Integer.numberOfLeadingZeros(size);
+  }
+
+  /**
+  * Swap keys and values between x and y
+  */
+  private void swap(CompactAvlTree<K,V> x, CompactAvlTree<K,V> y) {
+    K tempKey = x.key;
+    x.key = y.key;
+    y.key = tempKey;
+    V tempValue = x.value;
+    x.value = y.value;
+    y.value = tempValue;
+  }
+
+  /**
+  * Retrieve the balance of node, the height of its right subtree
+  * less that of its left
+  */
+  private int balance(CompactAvlTree<K,V> node) {
+    return node.bits << 29 >> 29;
+  }
+
+  /**
+  * Replace the balance bits of node, leaving the rest of its word
+  */
+  private void setBalance(CompactAvlTree<K,V> node, int balance) {
+    node.bits = node.bits & ~7 | balance & 7;
+  }
+
+  /**
+  * Utility function for integer max
+  */
+  private int max(int x, int y) {
+    return x > y ? x : y;
+  }
+
+  /**
+  * Cursor resting on a node of this tree. Without parent references
+  * the cursor keeps the ancestors of its node in its own stack
+  */
+  private class Cursor implements MambaCursor<K,V> {
+
+    private final CompactAvlTree<K,V>[] stack = newStack();
+    private int depth = -1;
+    // key followed by a removed entry, found again on next use
+    private K pending;
+
+    public boolean isValid() {
+      return depth >= 0 || pending != null;
+    }
+
+    public K getKey() {
+      settle();
+      return depth >= 0 ? stack[depth].key : null;
+    }
+
+    public V getValue() {
+      settle();
+      return depth >= 0 ? stack[depth].value : null;
+    }
+
+    public void setValue(V value) {
+      settle();
+      if (depth >= 0) {
+        stack[depth].value = value;
+      }
+    }
+
+    public boolean next() {
+      settle();
+      if (depth < 0) { return false; }
+      CompactAvlTree<K,V> node = stack[depth];
+      if (node.right != null) {
+        descend(node.right,true);
+      }
+      else {
+        while (depth > 0 && stack[depth-1].right == stack[depth]) {
+          depth--;
+        }
+        depth--;
+      }
+      return depth >= 0;
+    }
+
+    public boolean prev() {
+      settle();
+      if (depth < 0) { return false; }
+      CompactAvlTree<K,V> node = stack[depth];
+      if (node.left != null) {
+        descend(node.left,false);
+      }
+      else {
+        while (depth > 0 && stack[depth-1].left == stack[depth]) {
+          depth--;
+        }
+        depth--;
+      }
+      return depth >= 0;
+    }
+
+    /**
+    * Push node and the chain of its left children when leftmost is
+    * set, otherwise its right children, resting on the last of them
+    */
+    private Cursor descend(CompactAvlTree<K,V> node, boolean leftmost) {
+      while (node != null) {
+        stack[++depth] = node;
+        node = leftmost ? node.left : node.right;
+      }
+      return this;
+    }
+
+    public boolean remove() {
+      settle();
+      if (depth < 0) { return false; }
+      // deletion moves entries between nodes, so unlink the entry
+      // along the stack and find the following key again once it is
+      // needed
+      pending = following();
+      Arrays.fill(stack,0,deleteAt(stack,depth)+1,null);
+      depth = -1;
+      return pending != null;
+    }
+
+    /**
+    * Retrieve the key following the one the cursor rests on, leaving
+    * the stack in place
+    */
+    private K following() {
+      CompactAvlTree<K,V> node = stack[depth];
+      if (node.right != null) {
+        node = node.right;
+        while (node.left != null) {
+          node = node.left;
+        }
+        return node.key;
+      }
+      for (int i = depth; i > 0; i--) {
+        if (stack[i-1].left == stack[i]) {
+          return stack[i-1].key;
+        }
+      }
+      return null;
+    }
+
+    /**
+    * Find the node of the key left pending by a removal
+    */
+    private void settle() {
+      if (pending != null) {
+        depth = key != null ? findBound(pending,true,stack) : -1;
+        pending = null;
+      }
+    }
+
+  }
+
+}
\ No newline at end of file
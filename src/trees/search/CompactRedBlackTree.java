@@ -0,0 +1,704 @@
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+* Compact Red Black Tree - A red black tree whose nodes hold only a
+* key, a value, two children and a word whose low bit is the color,
+* 32 bytes per node with compressed references against 64 for a
+* RedBlackTree node. The rest of the root's word counts the entries.
+* Operations descend iteratively and record their path in a stack
+* shared by every tree on the calling thread, while rotations exchange
+* contents between two nodes in place so no ancestor is ever relinked.
+* Provides insert, find and delete operations in guaranteed O(logn)
+* time for a tree on n nodes. Every node is uniquely identified by a
+* key (no duplicates in tree), and these keys map to corresponding values.
+* Only the root may be modified, nodes cannot tell that they are not it
+*/
+public class CompactRedBlackTree<K extends Comparable<K>,V extends Comparable<V>> implements MambaTree<K,V> {
+
+  // a red black tree on fewer than 2^31 nodes is less than 62 high,
+  // deletion may lengthen the recorded path by one on each rotation
+  private static final int MAX_HEIGHT = 96;
+
+  // four references and an int
+  private static final long NODE_BYTES = MemoryEstimator.object(4,4);
+
+  private static final ThreadLocal<CompactRedBlackTree<?,?>[]> PATH = new ThreadLocal<CompactRedBlackTree<?,?>[]>() {
+    protected CompactRedBlackTree<?,?>[] initialValue() {
+      return new CompactRedBlackTree<?,?>[MAX_HEIGHT];
+    }
+  };
+
+  private K key;
+  private V value;
+
+  private CompactRedBlackTree<K,V> left;
+  private CompactRedBlackTree<K,V> right;
+
+  // the low bit is the color, the remaining bits of the root's word
+  // count the entries, taking the padding after a byte field
+  private int bits;
+
+  public CompactRedBlackTree() {}
+
+  private CompactRedBlackTree(K key, V value, int color) {
+    this.key = key;
+    this.value = value;
+    this.bits = color;
+  }
+
+  public void insert(K key, V value) {
+    put(key, value);
+  }
+
+  public V put(K key, V value) {
+    if (key == null) { return null; }
+    if (this.key == null) {
+      this.key = key;
+      this.value = value;
+      // one entry, colored black
+      this.bits = 3;
+      return null;
+    }
+    CompactRedBlackTree<K,V>[] path = path();
+    CompactRedBlackTree<K,V> curr = this;
+    int depth = 0;
+    V old = null;
+    while (true) {
+      path[depth] = curr;
+      int cmp = curr.key.compareTo(key);
+      if (cmp == 0) {
+        old = curr.value;
+        curr.value = value;
+        break;
+      }
+      CompactRedBlackTree<K,V> next = cmp < 0 ? curr.right : curr.left;
+      if (next == null) {
+        next = new CompactRedBlackTree<K,V>(key, value, 0);
+        if (cmp < 0) {
+          curr.right = next;
+        }
+        else {
+          curr.left = next;
+        }
+        path[++depth] = next;
+        this.bits += 2;
+        insertionCheck(path,depth);
+        break;
+      }
+      curr = next;
+      depth++;
+    }
+    Arrays.fill(path,0,depth+1,null);
+    return old;
+  }
+
+  public V find(K key) {
+    if (key == null || this.key == null) { return null; }
+    CompactRedBlackTree<K,V> runner = this;
+    while (runner != null) {
+      int cmp = runner.key.compareTo(key);
+      if (cmp == 0) {
+        return runner.value;
+      }
+      runner = cmp < 0 ? runner.right : runner.left;
+    }
+    return null;
+  }
+
+  public void delete(K key) {
+    if (key == null || this.key == null) { return; }
+    CompactRedBlackTree<K,V>[] path = path();
+    CompactRedBlackTree<K,V> runner = this;
+    int depth = 0;
+    while (runner != null) {
+      path[depth] = runner;
+      int cmp = runner.key.compareTo(key);
+      if (cmp == 0) {
+        break;
+      }
+      runner = cmp < 0 ? runner.right : runner.left;
+      depth++;
+    }
+    if (runner != null) {
+      depth = deleteAt(path,depth);
+    }
+    Arrays.fill(path,0,depth+1,null);
+  }
+
+  public boolean isEmpty() {
+    return key == null;
+  }
+
+  public K getKey() {
+    return key;
+  }
+
+  public V getValue() {
+    return value;
+  }
+
+  /**
+  * Nodes keep no parent reference, so this is always null
+  */
+  public MambaTree<K,V> getParent() {
+    return null;
+  }
+  public MambaTree<K,V> getRight() {
+    return right;
+  }
+  public MambaTree<K,V> getLeft() {
+    return left;
+  }
+
+  public MambaCursor<K,V> seek(K key) {
+    if (key == null || this.key == null) { return null; }
+    Cursor cursor = new Cursor();
+    cursor.depth = findBound(key,true,cursor.stack);
+    if (cursor.depth < 0 || cursor.stack[cursor.depth].key.compareTo(key) != 0) {
+      return null;
+    }
+    return cursor;
+  }
+
+  public MambaCursor<K,V> seekCeiling(K key) {
+    if (key == null || this.key == null) { return null; }
+    Cursor cursor = new Cursor();
+    cursor.depth = findBound(key,true,cursor.stack);
+    return cursor.depth >= 0 ? cursor : null;
+  }
+
+  public MambaCursor<K,V> seekFloor(K key) {
+    if (key == null || this.key == null) { return null; }
+    Cursor cursor = new Cursor();
+    cursor.depth = findBound(key,false,cursor.stack);
+    return cursor.depth >= 0 ? cursor : null;
+  }
+
+  public MambaCursor<K,V> seekFirst() {
+    if (this.key == null) { return null; }
+    return new Cursor().descend(this,true);
+  }
+
+  public MambaCursor<K,V> seekLast() {
+    if (this.key == null) { return null; }
+    return new Cursor().descend(this,false);
+  }
+
+  public int size() {
+    return bits >>> 1;
+  }
+
+  public long bytesUsed() {
+    return Math.max(bits >>> 1,1)*NODE_BYTES;
+  }
+
+
+  /**
+  * Replace the contents of the tree with the first size entries of
+  * keys and values, which must be sorted by strictly increasing key.
+  * Builds a complete tree in O(n) time, the deepest level is colored
+  * red so every path carries the same number of black nodes
+  */
+  void loadSorted(K[] keys, V[] values, int size) {
+    this.left = null;
+    this.right = null;
+    if (size <= 0) {
+      this.key = null;
+      this.value = null;
+      this.bits = 0;
+      return;
+    }
+    int redDepth = 31 - Integer.numberOfLeadingZeros(size);
+    int mid = (size-1)/2;
+    this.key = keys[mid];
+    this.value = values[mid];
+    this.bits = size << 1 | 1;
+    this.left = buildSorted(keys,values,0,mid-1,1,redDepth);
+    this.right = buildSorted(keys,values,mid+1,size-1,1,redDepth);
+  }
+
+  // ---------------------- Tree Specific Operations --------------------- \\
+
+  /**
+  * Remove the entry of the node at path[depth], path holding every
+  * node from the root down to it. Returns the last occupied index
+  * of path
+  */
+  private int deleteAt(CompactRedBlackTree<K,V>[] path, int depth) {
+    CompactRedBlackTree<K,V> runner = path[depth];
+    this.bits -= 2;
+    // a node with two children takes the entry of its predecessor,
+    // whose node has at most one child and is removed instead
+    if (runner.left != null && runner.right != null) {
+      CompactRedBlackTree<K,V> target = runner.left;
+      path[++depth] = target;
+      while (target.right != null) {
+        target = target.right;
+        path[++depth] = target;
+      }
+      runner.key = target.key;
+      runner.value = target.value;
+    }
+    return deletionCheck(path,depth);
+  }
+
+  /**
+  * Retrieve the path stack of the calling thread. Every tree on the
+  * thread shares it, but it is emptied after each use, so it only
+  * ever holds nodes of the tree using it
+  */
+  @SuppressWarnings("unchecked")
+  private CompactRedBlackTree<K,V>[] path() {
+    return (CompactRedBlackTree<K,V>[]) PATH.get();
+  }
+
+  /**
+  * Allocate a stack deep enough for any path, generic arrays can
+  * only be created with wildcards and cast to the node type
+  */
+  @SuppressWarnings("unchecked")
+  private CompactRedBlackTree<K,V>[] newStack() {
+    return (CompactRedBlackTree<K,V>[]) new CompactRedBlackTree<?,?>[MAX_HEIGHT];
+  }
+
+  /**
+  * Verify red-black tree properties hold after inserting the
+  * node at path[depth], correcting as needed
+  */
+  private void insertionCheck(CompactRedBlackTree<K,V>[] path, int depth) {
+    while (true) {
+      CompactRedBlackTree<K,V> node = path[depth];
+      // case 0 : node is root, make black
+      if (depth == 0) {
+        setColor(node,1);
+        return;
+      }
+      // case 1 : parent is black
+      CompactRedBlackTree<K,V> parent = path[depth-1];
+      if (color(parent) == 1) {
+        return;
+      }
+      // case 2 : parent is red => grandparent exists since
+      // root is black, check uncle
+      CompactRedBlackTree<K,V> grandparent = path[depth-2];
+      CompactRedBlackTree<K,V> uncle = grandparent.left == parent
+        ? grandparent.right : grandparent.left;
+      if (uncle != null && color(uncle) == 0) {
+        setColor(uncle,1);
+        setColor(parent,1);
+        setColor(grandparent,0);
+        depth -= 2;
+        continue;
+      }
+      // case 3 : node is the inner child of parent, rotating parent
+      // leaves the two red nodes on the outer side of grandparent
+      if (parent.right == node && grandparent.left == parent) {
+        rotateLeft(parent);
+      }
+      else if (parent.left == node && grandparent.right == parent) {
+        rotateRight(parent);
+      }
+      // case 4 : the red node and its red parent are both outer
+      // children, rotate grandparent toward the other side
+      setColor(parent,1);
+      setColor(grandparent,0);
+      if (grandparent.left == parent) {
+        rotateRight(grandparent);
+      }
+      else {
+        rotateLeft(grandparent);
+      }
+      return;
+    }
+  }
+
+  /**
+  * Verify red-black tree properties hold after a deletion of the
+  * node at path[depth], which has at most one child, and remove it.
+  * Returns the last occupied index of path
+  */
+  private int deletionCheck(CompactRedBlackTree<K,V>[] path, int depth) {
+    CompactRedBlackTree<K,V> node = path[depth];
+    CompactRedBlackTree<K,V> child = node.left == null ? node.right : node.left;
+    // case 0 : node is red => it is a leaf
+    if (color(node) == 0) {
+      unlink(path,depth,child);
+      return depth;
+    }
+    // case 1 : node is black and child is red
+    else if (child != null && color(child) == 0) {
+      setColor(child,1);
+      unlink(path,depth,child);
+      return depth;
+    }
+    // case 2 : node is a black leaf, if it is the root
+    // the tree is now empty
+    if (depth == 0) {
+      this.key = null;
+      this.value = null;
+      return depth;
+    }
+    // otherwise repair the tree around it then remove the leaf
+    depth = chainDeletion(path,depth);
+    unlink(path,depth,null);
+    return depth;
+  }
+
+  /**
+  * Perform deletion on the phantom black leaf at path[depth]. A
+  * rotation at the parent of the node under repair puts a new node
+  * between them, which is inserted into the path. Returns the index
+  * of the leaf in the path once repairs are done
+  */
+  private int chainDeletion(CompactRedBlackTree<K,V>[] path, int depth) {
+    int index = depth;
+    while (index > 0) {
+      CompactRedBlackTree<K,V> node = path[index];
+      CompactRedBlackTree<K,V> parent = path[index-1];
+      boolean onLeft = parent.left == node;
+      CompactRedBlackTree<K,V> sibling = onLeft ? parent.right : parent.left;
+      // case 1 : sibling is red (the sibling must exist)
+      if (color(sibling) == 0) {
+        setColor(sibling,1);
+        setColor(parent,0);
+        parent = rotateToward(parent,onLeft);
+        depth = insertPath(path,index,depth,parent);
+        index++;
+        sibling = onLeft ? parent.right : parent.left;
+      }
+      // case 2 : parent, sibling and sibling children are black
+      if (color(parent) == 1 && color(sibling) == 1
+        && isBlack(sibling.left) && isBlack(sibling.right)) {
+        setColor(sibling,0);
+        index--;
+        continue;
+      }
+      // case 3 : parent is red, sibling is black and sibling
+      // children are both black
+      if (color(parent) == 0 && isBlack(sibling.left) && isBlack(sibling.right)) {
+        setColor(parent,1);
+        setColor(sibling,0);
+        break;
+      }
+      // case 4 : sibling is black, its inner child is red and
+      // its outer child is black
+      if (onLeft && isBlack(sibling.right)) {
+        setColor(sibling,0);
+        setColor(sibling.left,1);
+        rotateRight(sibling);
+      }
+      else if (!onLeft && isBlack(sibling.left)) {
+        setColor(sibling,0);
+        setColor(sibling.right,1);
+        rotateLeft(sibling);
+      }
+      // case 5 : sibling is black, its outer child is red
+      setColor(sibling,color(parent));
+      setColor(parent,1);
+      if (onLeft) {
+        setColor(sibling.right,1);
+      }
+      else {
+        setColor(sibling.left,1);
+      }
+      depth = insertPath(path,index,depth,rotateToward(parent,onLeft));
+      break;
+    }
+    return depth;
+  }
+
+  /**
+  * Rotate node toward its left side when left is set, otherwise
+  * toward its right, and retrieve the node that now holds the
+  * former contents of node
+  */
+  private CompactRedBlackTree<K,V> rotateToward(CompactRedBlackTree<K,V> node, boolean left) {
+    if (left) {
+      rotateLeft(node);
+      return node.left;
+    }
+    rotateRight(node);
+    return node.right;
+  }
+
+  /**
+  * Insert node into path at index, shifting the entries up to depth
+  * one place deeper, and retrieve the new last occupied index
+  */
+  private int insertPath(CompactRedBlackTree<K,V>[] path, int index, int depth,
+    CompactRedBlackTree<K,V> node) {
+    System.arraycopy(path,index,path,index+1,depth-index+1);
+    path[index] = node;
+    return depth+1;
+  }
+
+  /**
+  * Remove the node at path[depth] in favour of its only child
+  */
+  private void unlink(CompactRedBlackTree<K,V>[] path, int depth, CompactRedBlackTree<K,V> child) {
+    CompactRedBlackTree<K,V> node = path[depth];
+    // the root cannot be replaced, so it takes over the contents
+    // of its child, which is a leaf by the black height rule
+    if (depth == 0) {
+      node.key = child.key;
+      node.value = child.value;
+      node.left = child.left;
+      node.right = child.right;
+      return;
+    }
+    CompactRedBlackTree<K,V> parent = path[depth-1];
+    if (parent.left == node) {
+      parent.left = child;
+    }
+    else {
+      parent.right = child;
+    }
+  }
+
+  /**
+  * Determine whether node is black, absent nodes being black
+  */
+  private boolean isBlack(CompactRedBlackTree<K,V> node) {
+    return node == null || color(node) == 1;
+  }
+
+  /**
+  * Perform a right rotation centered on node. Node keeps its place
+  * in the tree and takes the contents of its left child, whose node
+  * moves down to the right holding the former contents of node
+  */
+  private void rotateRight(CompactRedBlackTree<K,V> node) {
+    CompactRedBlackTree<K,V> child = node.left;
+    node.left = child.left;
+    child.left = child.right;
+    child.right = node.right;
+    node.right = child;
+    swap(node,child);
+  }
+
+  /**
+  * Perform a left rotation centered on node. Node keeps its place
+  * in the tree and takes the contents of its right child, whose node
+  * moves down to the left holding the former contents of node
+  */
+  private void rotateLeft(CompactRedBlackTree<K,V> node) {
+    CompactRedBlackTree<K,V> child = node.right;
+    node.right = child.right;
+    child.right = child.left;
+    child.left = node.left;
+    node.left = child;
+    swap(node,child);
+  }
+
+  /**
+  * Find the node with the least key greater than or equal to key
+  * when ceiling is set, otherwise the greatest key less than or
+  * equal. Its ancestors are left in stack, and its index returned,
+  * or -1 if there is no such node
+  */
+  private int findBound(K key, boolean ceiling, CompactRedBlackTree<K,V>[] stack) {
+    CompactRedBlackTree<K,V> runner = this;
+    int depth = 0;
+    int bound = -1;
+    while (runner != null) {
+      stack[depth] = runner;
+      int cmp = runner.key.compareTo(key);
+      if (cmp == 0) {
+        return depth;
+      }
+      if (cmp > 0) {
+        bound = ceiling ? depth : bound;
+        runner = runner.left;
+      }
+      else {
+        bound = ceiling ? bound : depth;
+        runner = runner.right;
+      }
+      depth++;
+    }
+    return bound;
+  }
+
+  /**
+  * Build a complete subtree over the sorted range [low,high] of keys
+  * and values, nodes at redDepth are colored red and all others black
+  */
+  private CompactRedBlackTree<K,V> buildSorted(K[] keys, V[] values, int low, int high,
+    int depth, int redDepth) {
+    if (low > high) {
+      return null;
+    }
+    int mid = low+(high-low)/2;
+    CompactRedBlackTree<K,V> node = new CompactRedBlackTree<K,V>(keys[mid], values[mid],
+      depth == redDepth ? 0 : 1);
+    if (high-low < TreeBuilder.PARALLEL_GRAIN) {
+      node.left = buildSorted(keys,values,low,mid-1,depth+1,redDepth);
+      node.right = buildSorted(keys,values,mid+1,high,depth+1,redDepth);
+      return node;
+    }
+    // large ranges build their left half as a fork join task
+    // while this thread builds the right half
+    ForkJoinTask<CompactRedBlackTree<K,V>> task = ForkJoinTask.adapt(new Callable<CompactRedBlackTree<K,V>>() {
+      public CompactRedBlackTree<K,V> call() {
+        return buildSorted(keys,values,low,mid-1,depth+1,redDepth);
+      }
+    }).fork();
+    node.right = buildSorted(keys,values,mid+1,high,depth+1,redDepth);
+    node.left = task.join();
+    return node;
+  }
+
+  /**
+  * Swap keys, values and colors between x and y, an entry count
+  * staying with the root
+  */
+  private void swap(CompactRedBlackTree<K,V> x, CompactRedBlackTree<K,V> y) {
+    K tempKey = x.key;
+    x.key = y.key;
+    y.key = tempKey;
+    V tempValue = x.value;
+    x.value = y.value;
+    y.value = tempValue;
+    int tempColor = color(x);
+    setColor(x,color(y));
+    setColor(y,tempColor);
+  }
+
+  /**
+  * Retrieve the color of node, 0 for red and 1 for black
+  */
+  private int color(CompactRedBlackTree<K,V> node) {
+    return node.bits & 1;
+  }
+
+  /**
+  * Replace the color bit of node, leaving the rest of its word
+  */
+  private void setColor(CompactRedBlackTree<K,V> node, int color) {
+    node.bits = node.bits & ~1 | color;
+  }
+
+  /**
+  * Cursor resting on a node of this tree. Without parent references
+  * the cursor keeps the ancestors of its node in its own stack
+  */
+  private class Cursor implements MambaCursor<K,V> {
+
+    private final CompactRedBlackTree<K,V>[] stack = newStack();
+    private int depth = -1;
+    // key followed by a removed entry, found again on next use
+    private K pending;
+
+    public boolean isValid() {
+      return depth >= 0 || pending != null;
+    }
+
+    public K getKey() {
+      settle();
+      return depth >= 0 ? stack[depth].key : null;
+    }
+
+    public V getValue() {
+      settle();
+      return depth >= 0 ? stack[depth].value : null;
+    }
+
+    public void setValue(V value) {
+      settle();
+      if (depth >= 0) {
+        stack[depth].value = value;
+      }
+    }
+
+    public boolean next() {
+      settle();
+      if (depth < 0) { return false; }
+      CompactRedBlackTree<K,V> node = stack[depth];
+      if (node.right != null) {
+        descend(node.right,true);
+      }
+      else {
+        while (depth > 0 && stack[depth-1].right == stack[depth]) {
+          depth--;
+        }
+        depth--;
+      }
+      return depth >= 0;
+    }
+
+    public boolean prev() {
+      settle();
+      if (depth < 0) { return false; }
+      CompactRedBlackTree<K,V> node = stack[depth];
+      if (node.left != null) {
+        descend(node.left,false);
+      }
+      else {
+        while (depth > 0 && stack[depth-1].left == stack[depth]) {
+          depth--;
+        }
+        depth--;
+      }
+      return depth >= 0;
+    }
+
+    /**
+    * Push node and the chain of its left children when leftmost is
+    * set, otherwise its right children, resting on the last of them
+    */
+    private Cursor descend(CompactRedBlackTree<K,V> node, boolean leftmost) {
+      while (node != null) {
+        stack[++depth] = node;
+        node = leftmost ? node.left : node.right;
+      }
+      return this;
+    }
+
+    public boolean remove() {
+      settle();
+      if (depth < 0) { return false; }
+      // deletion moves entries between nodes, so unlink the entry
+      // along the stack and find the following key again once it is
+      // needed
+      pending = following();
+      Arrays.fill(stack,0,deleteAt(stack,depth)+1,null);
+      depth = -1;
+      return pending != null;
+    }
+
+    /**
+    * Retrieve the key following the one the cursor rests on, leaving
+    * the stack in place
+    */
+    private K following() {
+      CompactRedBlackTree<K,V> node = stack[depth];
+      if (node.right != null) {
+        node = node.right;
+        while (node.left != null) {
+          node = node.left;
+        }
+        return node.key;
+      }
+      for (int i = depth; i > 0; i--) {
+        if (stack[i-1].left == stack[i]) {
+          return stack[i-1].key;
+        }
+      }
+      return null;
+    }
+
+    /**
+    * Find the node of the key left pending by a removal
+    */
+    private void settle() {
+      if (pending != null) {
+        depth = key != null ? findBound(pending,true,stack) : -1;
+        pending = null;
+      }
+    }
+
+  }
+
+}
\ No newline at end of file
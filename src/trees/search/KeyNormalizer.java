@@ -0,0 +1,51 @@
+/**
+* Key Normalizer - Maps a key to a 64 bit prefix that preserves
+* key order, that is a.compareTo(b) < 0 implies normalize(a) <=
+* normalize(b) when compared as signed longs. Trees given a
+* normalizer store the prefix inline in every node and only call
+* compareTo when two prefixes tie
+*/
+public interface KeyNormalizer<K> {
+
+  /**
+  * Retrieve the order preserving prefix of key
+  */
+  public long normalize(K key);
+
+  /**
+  * Packs the first four UTF-16 units of a string, shorter strings
+  * are padded with zero so a prefix sorts before its extensions
+  */
+  public static final KeyNormalizer<String> STRING = new KeyNormalizer<String>() {
+    public long normalize(String key) {
+      long prefix = 0;
+      int length = key.length();
+      for (int x = 0; x < 4; x++) {
+        prefix = (prefix << 16) | (x < length ? key.charAt(x) : 0);
+      }
+      // flip the sign bit so signed comparison matches unsigned order
+      return prefix ^ Long.MIN_VALUE;
+    }
+  };
+
+  /**
+  * Long keys are their own prefix, so prefixes only tie on equal
+  * keys, where compareTo still runs once to confirm the match
+  */
+  public static final KeyNormalizer<Long> LONG = new KeyNormalizer<Long>() {
+    public long normalize(Long key) {
+      return key;
+    }
+  };
+
+  /**
+  * Integer keys are their own prefix, so prefixes only tie on equal
+  * keys, where compareTo still runs once to confirm the match
+  */
+  public static final KeyNormalizer<Integer> INTEGER = new KeyNormalizer<Integer>() {
+    public long normalize(Integer key) {
+      return key;
+    }
+  };
+
+}
\ No newline at end of file
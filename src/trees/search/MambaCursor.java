@@ -0,0 +1,50 @@
+/**
+* Interface detailing a cursor resting on an entry of a binary search
+* tree. A cursor reads and replaces the value of its entry in place
+* and steps to neighbouring entries without descending from the root.
+* Inserting or deleting through the tree itself invalidates any cursor
+*/
+public interface MambaCursor<K extends Comparable<K>,V extends Comparable<V>> {
+
+  /**
+  * Determine if the cursor rests on an entry
+  */
+  public boolean isValid();
+
+  /**
+  * Retrieve key of the entry under the cursor
+  */
+  public K getKey();
+
+  /**
+  * Retrieve value of the entry under the cursor
+  */
+  public V getValue();
+
+  /**
+  * Replace value of the entry under the cursor
+  */
+  public void setValue(V value);
+
+  /**
+  * Step to the entry with the next larger key, the cursor becomes
+  * invalid and false is returned if there is no such entry
+  */
+  public boolean next();
+
+  /**
+  * Step to the entry with the next smaller key, the cursor becomes
+  * invalid and false is returned if there is no such entry
+  */
+  public boolean prev();
+
+  /**
+  * Delete the entry under the cursor from the tree and step to the
+  * entry with the next larger key, returning false if there is none.
+  * The entry is unlinked where the cursor rests without descending
+  * from the root, and the following entry is only found again once
+  * the cursor is next used
+  */
+  public boolean remove();
+
+}
\ No newline at end of file
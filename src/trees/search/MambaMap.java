@@ -0,0 +1,638 @@
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+* Mamba Map - Exposes any MambaTree as a NavigableMap. Navigation
+* methods seek a cursor straight to their answer in O(logn) time,
+* the views returned by subMap, headMap, tailMap and descendingMap
+* share the tree and restrict it to a key range, and iterators step
+* a cursor from entry to entry. Null keys are not permitted, and the
+* map must only be modified through an iterator while it is iterated
+*/
+public class MambaMap<K extends Comparable<K>,V extends Comparable<V>> extends AbstractMap<K,V> implements NavigableMap<K,V> {
+
+  private final MambaTree<K,V> tree;
+
+  // key range of a view in ascending key order, null is unbounded
+  private final K low;
+  private final boolean lowInclusive;
+  private final K high;
+  private final boolean highInclusive;
+  private final boolean descending;
+
+  public MambaMap(MambaTree<K,V> tree) {
+    this(tree,null,false,null,false,false);
+  }
+
+  private MambaMap(MambaTree<K,V> tree, K low, boolean lowInclusive,
+    K high, boolean highInclusive, boolean descending) {
+    this.tree = tree;
+    this.low = low;
+    this.lowInclusive = lowInclusive;
+    this.high = high;
+    this.highInclusive = highInclusive;
+    this.descending = descending;
+  }
+
+  public V get(Object key) {
+    K k = toKey(key);
+    return inRange(k) ? tree.find(k) : null;
+  }
+
+  public boolean containsKey(Object key) {
+    K k = toKey(key);
+    return inRange(k) && tree.seek(k) != null;
+  }
+
+  /**
+  * Insert or replace the value of key, a key already present is
+  * found and replaced with a single descent
+  */
+  public V put(K key, V value) {
+    if (key == null) { throw new NullPointerException(); }
+    if (!inRange(key)) { throw new IllegalArgumentException("key out of range"); }
+    return tree.put(key,value);
+  }
+
+  public V remove(Object key) {
+    K k = toKey(key);
+    if (!inRange(k)) { return null; }
+    MambaCursor<K,V> cursor = tree.seek(k);
+    if (cursor == null) { return null; }
+    V old = cursor.getValue();
+    cursor.remove();
+    return old;
+  }
+
+  /**
+  * Takes O(1) time for the whole map when the tree keeps a count,
+  * views count their entries by stepping through them
+  */
+  public int size() {
+    if (low == null && high == null) {
+      return tree.size();
+    }
+    int count = 0;
+    MambaCursor<K,V> cursor = absLowest();
+    while (cursor != null && cursor.isValid() && !tooHigh(cursor.getKey())) {
+      count++;
+      cursor.next();
+    }
+    return count;
+  }
+
+  public boolean isEmpty() {
+    return absLowest() == null;
+  }
+
+  public void clear() {
+    MambaCursor<K,V> cursor = absLowest();
+    boolean more = cursor != null;
+    while (more) {
+      more = cursor.remove() && !tooHigh(cursor.getKey());
+    }
+  }
+
+  public Comparator<? super K> comparator() {
+    return descending ? Collections.<K>reverseOrder() : null;
+  }
+
+  public K firstKey() {
+    return keyOrThrow(lowest());
+  }
+
+  public K lastKey() {
+    return keyOrThrow(highest());
+  }
+
+  public Map.Entry<K,V> firstEntry() {
+    return entry(lowest());
+  }
+
+  public Map.Entry<K,V> lastEntry() {
+    return entry(highest());
+  }
+
+  public Map.Entry<K,V> pollFirstEntry() {
+    return poll(lowest());
+  }
+
+  public Map.Entry<K,V> pollLastEntry() {
+    return poll(highest());
+  }
+
+  public Map.Entry<K,V> lowerEntry(K key) {
+    return entry(lowerCursor(key));
+  }
+
+  public K lowerKey(K key) {
+    return key(lowerCursor(key));
+  }
+
+  public Map.Entry<K,V> floorEntry(K key) {
+    return entry(floorCursor(key));
+  }
+
+  public K floorKey(K key) {
+    return key(floorCursor(key));
+  }
+
+  public Map.Entry<K,V> ceilingEntry(K key) {
+    return entry(ceilingCursor(key));
+  }
+
+  public K ceilingKey(K key) {
+    return key(ceilingCursor(key));
+  }
+
+  public Map.Entry<K,V> higherEntry(K key) {
+    return entry(higherCursor(key));
+  }
+
+  public K higherKey(K key) {
+    return key(higherCursor(key));
+  }
+
+  public MambaMap<K,V> descendingMap() {
+    return new MambaMap<K,V>(tree, low, lowInclusive, high, highInclusive, !descending);
+  }
+
+  public NavigableSet<K> navigableKeySet() {
+    return new KeySet();
+  }
+
+  public NavigableSet<K> descendingKeySet() {
+    return descendingMap().navigableKeySet();
+  }
+
+  public Set<K> keySet() {
+    return navigableKeySet();
+  }
+
+  public Set<Map.Entry<K,V>> entrySet() {
+    return new EntrySet();
+  }
+
+  public MambaMap<K,V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+    if (fromKey == null || toKey == null) { throw new NullPointerException(); }
+    int cmp = fromKey.compareTo(toKey);
+    if (descending ? cmp < 0 : cmp > 0) {
+      throw new IllegalArgumentException("fromKey > toKey");
+    }
+    return descending ? view(toKey,toInclusive,fromKey,fromInclusive)
+      : view(fromKey,fromInclusive,toKey,toInclusive);
+  }
+
+  public MambaMap<K,V> headMap(K toKey, boolean inclusive) {
+    if (toKey == null) { throw new NullPointerException(); }
+    return descending ? view(toKey,inclusive,null,false) : view(null,false,toKey,inclusive);
+  }
+
+  public MambaMap<K,V> tailMap(K fromKey, boolean inclusive) {
+    if (fromKey == null) { throw new NullPointerException(); }
+    return descending ? view(null,false,fromKey,inclusive) : view(fromKey,inclusive,null,false);
+  }
+
+  public MambaMap<K,V> subMap(K fromKey, K toKey) {
+    return subMap(fromKey,true,toKey,false);
+  }
+
+  public MambaMap<K,V> headMap(K toKey) {
+    return headMap(toKey,false);
+  }
+
+  public MambaMap<K,V> tailMap(K fromKey) {
+    return tailMap(fromKey,true);
+  }
+
+  // ---------------------- Map Specific Operations --------------------- \\
+
+  /**
+  * Narrow this view to the range between lo and hi in ascending key
+  * order, either of which may be null to keep the current bound. As
+  * for TreeMap, an inclusive bound must lie in the view while an
+  * exclusive one may also equal a bound the view excludes
+  */
+  private MambaMap<K,V> view(K lo, boolean loInclusive, K hi, boolean hiInclusive) {
+    K newLow = low;
+    boolean newLowInclusive = lowInclusive;
+    if (lo != null) {
+      if (loInclusive ? !inRange(lo) : outside(lo)) { throw new IllegalArgumentException("key out of range"); }
+      newLowInclusive = loInclusive;
+      newLow = lo;
+    }
+    K newHigh = high;
+    boolean newHighInclusive = highInclusive;
+    if (hi != null) {
+      if (hiInclusive ? !inRange(hi) : outside(hi)) { throw new IllegalArgumentException("key out of range"); }
+      newHighInclusive = hiInclusive;
+      newHigh = hi;
+    }
+    return new MambaMap<K,V>(tree, newLow, newLowInclusive, newHigh, newHighInclusive, descending);
+  }
+
+  /**
+  * Determine whether key lies strictly beyond either bound
+  */
+  private boolean outside(K key) {
+    return (low != null && key.compareTo(low) < 0) || (high != null && key.compareTo(high) > 0);
+  }
+
+  private boolean tooLow(K key) {
+    if (low == null) {
+      return false;
+    }
+    int cmp = key.compareTo(low);
+    return cmp < 0 || (cmp == 0 && !lowInclusive);
+  }
+
+  private boolean tooHigh(K key) {
+    if (high == null) {
+      return false;
+    }
+    int cmp = key.compareTo(high);
+    return cmp > 0 || (cmp == 0 && !highInclusive);
+  }
+
+  private boolean inRange(K key) {
+    return !tooLow(key) && !tooHigh(key);
+  }
+
+  /**
+  * Cursors in the order of this view, the abs prefixed versions
+  * below always work in ascending key order
+  */
+  private MambaCursor<K,V> lowest() {
+    return descending ? absHighest() : absLowest();
+  }
+
+  private MambaCursor<K,V> highest() {
+    return descending ? absLowest() : absHighest();
+  }
+
+  private MambaCursor<K,V> ceilingCursor(K key) {
+    return descending ? absFloor(checked(key)) : absCeiling(checked(key));
+  }
+
+  private MambaCursor<K,V> higherCursor(K key) {
+    return descending ? absLower(checked(key)) : absHigher(checked(key));
+  }
+
+  private MambaCursor<K,V> floorCursor(K key) {
+    return descending ? absCeiling(checked(key)) : absFloor(checked(key));
+  }
+
+  private MambaCursor<K,V> lowerCursor(K key) {
+    return descending ? absHigher(checked(key)) : absLower(checked(key));
+  }
+
+  private MambaCursor<K,V> absLowest() {
+    MambaCursor<K,V> cursor = low == null ? tree.seekFirst()
+      : lowInclusive ? tree.seekCeiling(low) : strictlyHigher(low);
+    return cursor != null && !tooHigh(cursor.getKey()) ? cursor : null;
+  }
+
+  private MambaCursor<K,V> absHighest() {
+    MambaCursor<K,V> cursor = high == null ? tree.seekLast()
+      : highInclusive ? tree.seekFloor(high) : strictlyLower(high);
+    return cursor != null && !tooLow(cursor.getKey()) ? cursor : null;
+  }
+
+  private MambaCursor<K,V> absCeiling(K key) {
+    if (tooLow(key)) {
+      return absLowest();
+    }
+    MambaCursor<K,V> cursor = tree.seekCeiling(key);
+    return cursor != null && !tooHigh(cursor.getKey()) ? cursor : null;
+  }
+
+  private MambaCursor<K,V> absHigher(K key) {
+    if (tooLow(key)) {
+      return absLowest();
+    }
+    MambaCursor<K,V> cursor = strictlyHigher(key);
+    return cursor != null && !tooHigh(cursor.getKey()) ? cursor : null;
+  }
+
+  private MambaCursor<K,V> absFloor(K key) {
+    if (tooHigh(key)) {
+      return absHighest();
+    }
+    MambaCursor<K,V> cursor = tree.seekFloor(key);
+    return cursor != null && !tooLow(cursor.getKey()) ? cursor : null;
+  }
+
+  private MambaCursor<K,V> absLower(K key) {
+    if (tooHigh(key)) {
+      return absHighest();
+    }
+    MambaCursor<K,V> cursor = strictlyLower(key);
+    return cursor != null && !tooLow(cursor.getKey()) ? cursor : null;
+  }
+
+  /**
+  * Cursor on the least key of the whole tree greater than key
+  */
+  private MambaCursor<K,V> strictlyHigher(K key) {
+    MambaCursor<K,V> cursor = tree.seekCeiling(key);
+    if (cursor != null && cursor.getKey().compareTo(key) == 0) {
+      return cursor.next() ? cursor : null;
+    }
+    return cursor;
+  }
+
+  /**
+  * Cursor on the greatest key of the whole tree less than key
+  */
+  private MambaCursor<K,V> strictlyLower(K key) {
+    MambaCursor<K,V> cursor = tree.seekFloor(key);
+    if (cursor != null && cursor.getKey().compareTo(key) == 0) {
+      return cursor.prev() ? cursor : null;
+    }
+    return cursor;
+  }
+
+  /**
+  * Remove the entry under cursor and retrieve a snapshot of it
+  */
+  private Map.Entry<K,V> poll(MambaCursor<K,V> cursor) {
+    if (cursor == null) {
+      return null;
+    }
+    Map.Entry<K,V> entry = entry(cursor);
+    cursor.remove();
+    return entry;
+  }
+
+  private Map.Entry<K,V> entry(MambaCursor<K,V> cursor) {
+    return cursor != null ? new AbstractMap.SimpleImmutableEntry<K,V>(cursor.getKey(), cursor.getValue()) : null;
+  }
+
+  private K key(MambaCursor<K,V> cursor) {
+    return cursor != null ? cursor.getKey() : null;
+  }
+
+  private K keyOrThrow(MambaCursor<K,V> cursor) {
+    if (cursor == null) { throw new NoSuchElementException(); }
+    return cursor.getKey();
+  }
+
+  private K checked(K key) {
+    if (key == null) { throw new NullPointerException(); }
+    return key;
+  }
+
+  @SuppressWarnings("unchecked")
+  private K toKey(Object key) {
+    if (key == null) { throw new NullPointerException(); }
+    return (K) key;
+  }
+
+  /**
+  * Entry handed out by iterators, writing its value writes the tree
+  * through the iterator's cursor while it still rests on the entry,
+  * and through a seek afterwards, which a splay tree restructures on
+  * like any other modification. An entry since removed from the tree
+  * only keeps the value written
+  */
+  private class Entry extends AbstractMap.SimpleEntry<K,V> {
+
+    private static final long serialVersionUID = 1L;
+
+    // cursor on the entry's node, null once the iterator steps past it
+    private transient MambaCursor<K,V> cursor;
+
+    private Entry(K key, V value, MambaCursor<K,V> cursor) {
+      super(key,value);
+      this.cursor = cursor;
+    }
+
+    public V setValue(V value) {
+      MambaCursor<K,V> at = cursor != null ? cursor : tree.seek(getKey());
+      if (at != null) {
+        at.setValue(value);
+      }
+      return super.setValue(value);
+    }
+
+  }
+
+  /**
+  * Iterator stepping a cursor through the view in its order. The
+  * cursor stays on the entry last returned until the iterator is next
+  * used, so removal unlinks that entry in place. Removal after hasNext
+  * has stepped past it deletes by key and seeks the following entry
+  */
+  private abstract class CursorIterator<T> implements Iterator<T> {
+
+    private MambaCursor<K,V> cursor = lowest();
+    private Entry last;
+    // whether the cursor has moved past the entry last returned
+    private boolean stepped = true;
+
+    public boolean hasNext() {
+      step();
+      return cursor != null;
+    }
+
+    protected Entry nextEntry() {
+      step();
+      if (cursor == null) { throw new NoSuchElementException(); }
+      last = new Entry(cursor.getKey(), cursor.getValue(), cursor);
+      stepped = false;
+      return last;
+    }
+
+    public void remove() {
+      if (last == null) { throw new IllegalStateException(); }
+      if (stepped) {
+        K following = cursor != null ? cursor.getKey() : null;
+        tree.delete(last.getKey());
+        if (following != null) {
+          cursor = tree.seek(following);
+        }
+      }
+      else {
+        // removal leaves the cursor on the next larger key
+        last.cursor = null;
+        boolean more = cursor.remove();
+        if (descending) {
+          more = more ? cursor.prev() : (cursor = tree.seekLast()) != null;
+        }
+        if (!more || !inRange(cursor.getKey())) {
+          cursor = null;
+        }
+        stepped = true;
+      }
+      last = null;
+    }
+
+    /**
+    * Move the cursor past the entry last returned, detaching the
+    * entry from it
+    */
+    private void step() {
+      if (stepped) {
+        return;
+      }
+      stepped = true;
+      last.cursor = null;
+      boolean more = descending ? cursor.prev() : cursor.next();
+      if (!more || !inRange(cursor.getKey())) {
+        cursor = null;
+      }
+    }
+
+  }
+
+  private class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+
+    public Iterator<Map.Entry<K,V>> iterator() {
+      return new CursorIterator<Map.Entry<K,V>>() {
+        public Map.Entry<K,V> next() {
+          return nextEntry();
+        }
+      };
+    }
+
+    public int size() {
+      return MambaMap.this.size();
+    }
+
+    public boolean isEmpty() {
+      return MambaMap.this.isEmpty();
+    }
+
+    public boolean contains(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?,?> entry = (Map.Entry<?,?>) o;
+      if (entry.getKey() == null || !containsKey(entry.getKey())) {
+        return false;
+      }
+      V value = get(entry.getKey());
+      return value == null ? entry.getValue() == null : value.equals(entry.getValue());
+    }
+
+    public void clear() {
+      MambaMap.this.clear();
+    }
+
+  }
+
+  private class KeySet extends AbstractSet<K> implements NavigableSet<K> {
+
+    public Iterator<K> iterator() {
+      return new CursorIterator<K>() {
+        public K next() {
+          return nextEntry().getKey();
+        }
+      };
+    }
+
+    public Iterator<K> descendingIterator() {
+      return descendingSet().iterator();
+    }
+
+    public int size() {
+      return MambaMap.this.size();
+    }
+
+    public boolean isEmpty() {
+      return MambaMap.this.isEmpty();
+    }
+
+    public boolean contains(Object o) {
+      return containsKey(o);
+    }
+
+    public boolean remove(Object o) {
+      if (!containsKey(o)) {
+        return false;
+      }
+      MambaMap.this.remove(o);
+      return true;
+    }
+
+    public void clear() {
+      MambaMap.this.clear();
+    }
+
+    public Comparator<? super K> comparator() {
+      return MambaMap.this.comparator();
+    }
+
+    public K first() {
+      return firstKey();
+    }
+
+    public K last() {
+      return lastKey();
+    }
+
+    public K lower(K key) {
+      return lowerKey(key);
+    }
+
+    public K floor(K key) {
+      return floorKey(key);
+    }
+
+    public K ceiling(K key) {
+      return ceilingKey(key);
+    }
+
+    public K higher(K key) {
+      return higherKey(key);
+    }
+
+    public K pollFirst() {
+      Map.Entry<K,V> entry = pollFirstEntry();
+      return entry != null ? entry.getKey() : null;
+    }
+
+    public K pollLast() {
+      Map.Entry<K,V> entry = pollLastEntry();
+      return entry != null ? entry.getKey() : null;
+    }
+
+    public NavigableSet<K> descendingSet() {
+      return descendingMap().navigableKeySet();
+    }
+
+    public NavigableSet<K> subSet(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+      return subMap(fromKey,fromInclusive,toKey,toInclusive).navigableKeySet();
+    }
+
+    public NavigableSet<K> headSet(K toKey, boolean inclusive) {
+      return headMap(toKey,inclusive).navigableKeySet();
+    }
+
+    public NavigableSet<K> tailSet(K fromKey, boolean inclusive) {
+      return tailMap(fromKey,inclusive).navigableKeySet();
+    }
+
+    public NavigableSet<K> subSet(K fromKey, K toKey) {
+      return subSet(fromKey,true,toKey,false);
+    }
+
+    public NavigableSet<K> headSet(K toKey) {
+      return headSet(toKey,false);
+    }
+
+    public NavigableSet<K> tailSet(K fromKey) {
+      return tailSet(fromKey,true);
+    }
+
+  }
+
+}
\ No newline at end of file
@@ -9,6 +9,13 @@ public interface MambaTree<K extends Comparable<K>,V extends Comparable<V>> {
   */
   public void insert(K key, V value);
 
+  /**
+  * Insert key,value pair into the tree as insert does, with the same
+  * single descent, and retrieve the value it replaced, or null if
+  * key was not present
+  */
+  public V put(K key, V value);
+
   /**
   * Retrieve value associated with given key in tree
   */
@@ -24,6 +31,47 @@ public interface MambaTree<K extends Comparable<K>,V extends Comparable<V>> {
   */
   public boolean isEmpty();
 
+  /**
+  * Retrieve a cursor on the entry whose key matches given key,
+  * or null if there is no such entry
+  */
+  public MambaCursor<K,V> seek(K key);
+
+  /**
+  * Retrieve a cursor on the entry with the least key greater than
+  * or equal to given key, or null if there is no such entry
+  */
+  public MambaCursor<K,V> seekCeiling(K key);
+
+  /**
+  * Retrieve a cursor on the entry with the greatest key less than
+  * or equal to given key, or null if there is no such entry
+  */
+  public MambaCursor<K,V> seekFloor(K key);
+
+  /**
+  * Retrieve a cursor on the entry with the least key, or null
+  * if the tree is empty
+  */
+  public MambaCursor<K,V> seekFirst();
+
+  /**
+  * Retrieve a cursor on the entry with the greatest key, or null
+  * if the tree is empty
+  */
+  public MambaCursor<K,V> seekLast();
+
+  /**
+  * Retrieve the number of entries in the tree
+  */
+  public int size();
+
+  /**
+  * Estimate the heap retained by the tree in bytes, counting its
+  * nodes but not the keys and values they refer to
+  */
+  public long bytesUsed();
+
   /* Retrieval methods */
 
   public K getKey();
@@ -0,0 +1,107 @@
+/**
+* Monoid - An associative way of combining the values held in a
+* tree into a single aggregate. Trees given a monoid keep the
+* aggregate of every subtree so the aggregate over any key range
+* is found in O(logn) time. Combining need not be commutative, the
+* left argument always covers the smaller keys
+*/
+public interface Monoid<V,A> {
+
+  /**
+  * Retrieve the aggregate of no values
+  */
+  public A identity();
+
+  /**
+  * Retrieve the aggregate of a single value
+  */
+  public A lift(V value);
+
+  /**
+  * Combine the aggregates of two adjacent key ranges, x covering
+  * the smaller keys
+  */
+  public A combine(A x, A y);
+
+  /**
+  * Sums long values, a null value counts as zero
+  */
+  public static final Monoid<Long,Long> LONG_SUM = new Monoid<Long,Long>() {
+    public Long identity() {
+      return 0L;
+    }
+    public Long lift(Long value) {
+      return value != null ? value : 0L;
+    }
+    public Long combine(Long x, Long y) {
+      return x + y;
+    }
+  };
+
+  /**
+  * Sums double values, a null value counts as zero
+  */
+  public static final Monoid<Double,Double> DOUBLE_SUM = new Monoid<Double,Double>() {
+    public Double identity() {
+      return 0.0;
+    }
+    public Double lift(Double value) {
+      return value != null ? value : 0.0;
+    }
+    public Double combine(Double x, Double y) {
+      return x + y;
+    }
+  };
+
+  /**
+  * Counts entries regardless of their values
+  */
+  public static <V> Monoid<V,Long> count() {
+    return new Monoid<V,Long>() {
+      public Long identity() {
+        return 0L;
+      }
+      public Long lift(V value) {
+        return 1L;
+      }
+      public Long combine(Long x, Long y) {
+        return x + y;
+      }
+    };
+  }
+
+  /**
+  * Retrieves the least value, null when there are no non-null values
+  */
+  public static <V extends Comparable<V>> Monoid<V,V> min() {
+    return new Monoid<V,V>() {
+      public V identity() {
+        return null;
+      }
+      public V lift(V value) {
+        return value;
+      }
+      public V combine(V x, V y) {
+        return x == null ? y : y == null || x.compareTo(y) <= 0 ? x : y;
+      }
+    };
+  }
+
+  /**
+  * Retrieves the greatest value, null when there are no non-null values
+  */
+  public static <V extends Comparable<V>> Monoid<V,V> max() {
+    return new Monoid<V,V>() {
+      public V identity() {
+        return null;
+      }
+      public V lift(V value) {
+        return value;
+      }
+      public V combine(V x, V y) {
+        return x == null ? y : y == null || x.compareTo(y) >= 0 ? x : y;
+      }
+    };
+  }
+
+}
\ No newline at end of file
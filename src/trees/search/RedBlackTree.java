@@ -1,3 +1,6 @@
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
+
 /**
 * Red Black Tree - A self balancing binary search tree
 * that provides insert, find and delete operations in 
@@ -7,6 +10,14 @@
 */
 public class RedBlackTree<K extends Comparable<K>,V extends Comparable<V>> implements MambaTree<K,V> {
 
+  // five references and a byte, the sixth reference is the header,
+  // which every node but the root leaves null
+  private static final long NODE_BYTES = MemoryEstimator.object(6,1);
+  // an augmented node adds its key's prefix and its subtree's aggregate
+  private static final long AUGMENTED_BYTES = MemoryEstimator.object(7,9);
+  // three references, an int and a boolean
+  private static final long HEADER_BYTES = MemoryEstimator.object(3,5);
+
   private K key;
   private V value;
 
@@ -14,56 +25,120 @@ public class RedBlackTree<K extends Comparable<K>,V extends Comparable<V>> imple
   private RedBlackTree<K,V> right;
   private RedBlackTree<K,V> parent;
 
-  private int color;
+  // one of two colors
+  private byte color;
+
+  // state of the whole tree, kept by the root only
+  private final Header<K,V> header;
+
+  public RedBlackTree() {
+    this(new Header<K,V>(null, null));
+  }
 
-  public RedBlackTree() {}
+  private RedBlackTree(Header<K,V> header) {
+    this.header = header;
+  }
 
   private RedBlackTree(K key, V value, RedBlackTree<K,V> parent, int color) {
     this.key = key;
     this.value = value;
     this.parent = parent;
-    this.color = color;
+    this.color = (byte) color;
+    this.header = null;
+  }
+
+  /**
+  * Construct a tree that stores the normalized prefix of every key
+  * inline and resolves most comparisons without calling compareTo
+  */
+  public static <K extends Comparable<K>,V extends Comparable<V>> RedBlackTree<K,V> withNormalizer(
+    KeyNormalizer<K> normalizer) {
+    return with(normalizer, null);
+  }
+
+  /**
+  * Construct a tree that keeps the aggregate of the values in every
+  * subtree under monoid, so aggregates over key ranges take O(logn)
+  */
+  public static <K extends Comparable<K>,V extends Comparable<V>> RedBlackTree<K,V> withMonoid(
+    Monoid<V,?> monoid) {
+    return with(null, monoid);
+  }
+
+  /**
+  * Construct a tree with a key normalizer, a value monoid or both,
+  * either of which may be null. Only a tree with one of them set
+  * builds the larger augmented nodes that hold prefixes and aggregates
+  */
+  @SuppressWarnings("unchecked")
+  public static <K extends Comparable<K>,V extends Comparable<V>> RedBlackTree<K,V> with(
+    KeyNormalizer<K> normalizer, Monoid<V,?> monoid) {
+    Header<K,V> header = new Header<K,V>(normalizer, (Monoid<V,Object>) monoid);
+    if (normalizer == null && monoid == null) {
+      return new RedBlackTree<K,V>(header);
+    }
+    return new Augmented<K,V>(header);
   }
 
   public void insert(K key, V value) {
-    if (key == null || this.parent != null) { return; }
+    put(key, value);
+  }
+
+  public V put(K key, V value) {
+    if (key == null || this.parent != null) { return null; }
+    long prefix = normalize(key);
     if (this.key == null) {
       this.key = key;
       this.value = value;
       this.color = 1;
-      return;
+      setPrefix(this,prefix);
+      header.size = 1;
+      refresh(this);
+      return null;
     }
-    RedBlackTree<K,V> curr = this;
+    RedBlackTree<K,V> curr = startNode(key,prefix);
     while (true) {
-      if (curr.key.compareTo(key) < 0) {
+      int cmp = compareNode(curr,key,prefix);
+      if (cmp < 0) {
         if (curr.right == null) {
-            RedBlackTree<K,V> node = new RedBlackTree<K,V>(key, value, curr, 0);
+            RedBlackTree<K,V> node = newNode(key, value, curr, 0, prefix);
             curr.right = node;
+            header.size++;
+            refreshPath(node);
+            header.finger = header.fingerSearch ? node : null;
             insertionCheck(node);
             break;
         }
         curr = curr.right;
       }
-      else if (curr.key.compareTo(key) > 0) {
+      else if (cmp > 0) {
         if (curr.left == null) {
-            RedBlackTree<K,V> node = new RedBlackTree<K,V>(key, value, curr, 0);
+            RedBlackTree<K,V> node = newNode(key, value, curr, 0, prefix);
             curr.left = node;
+            header.size++;
+            refreshPath(node);
+            header.finger = header.fingerSearch ? node : null;
             insertionCheck(node);
             break;
         }
         curr = curr.left;
       }
       else {
+        V old = curr.value;
         curr.value = value;
-        return;
+        refreshPath(curr);
+        header.finger = header.fingerSearch ? curr : null;
+        return old;
       }
     }
     verifyRoot();
+    return null;
   }
 
   public V find(K key) {
     if (key == null || this.key == null || this.parent != null) { return null; }
     RedBlackTree<K,V> runner = findNode(key);
+    header.finger = header.fingerSearch ? runner : null;
     return runner != null ? runner.value : null;
   }
 
@@ -71,19 +146,8 @@ public class RedBlackTree<K extends Comparable<K>,V extends Comparable<V>> imple
     if (key == null || this.key == null || this.parent != null) { return; }
     RedBlackTree<K,V> runner = findNode(key);
     if (runner != null) {
-      if (isLeaf(runner) && runner == this) { 
-        this.key = null;
-        return;
-      }
-      else if (!isLeaf(runner)) {
-        RedBlackTree<K,V> target = runner.left == null 
-          ? findMinimum(runner.right) : findMaximum(runner.left);
-        swap(runner,target);
-        runner = target;
-      }
-      deletionCheck(runner);
+      deleteNode(runner);
     }
-    verifyRoot();
   }
 
   public boolean isEmpty() {
@@ -98,28 +162,162 @@ public class RedBlackTree<K extends Comparable<K>,V extends Comparable<V>> imple
     return value;
   }
 
-  public MambaTree getParent() {
+  public RedBlackTree<K,V> getParent() {
     return parent;
   }
-  public MambaTree getRight() {
+  public RedBlackTree<K,V> getRight() {
     return right;
   }
-  public MambaTree getLeft() {
+  public RedBlackTree<K,V> getLeft() {
     return left;
   }
 
+  public MambaCursor<K,V> seek(K key) {
+    if (key == null || this.key == null || this.parent != null) { return null; }
+    RedBlackTree<K,V> runner = findNode(key);
+    header.finger = header.fingerSearch ? runner : null;
+    return runner != null ? new Cursor(runner) : null;
+  }
+
+  public MambaCursor<K,V> seekCeiling(K key) {
+    if (key == null || this.key == null || this.parent != null) { return null; }
+    RedBlackTree<K,V> runner = findBound(key,true);
+    return runner != null ? new Cursor(runner) : null;
+  }
+
+  public MambaCursor<K,V> seekFloor(K key) {
+    if (key == null || this.key == null || this.parent != null) { return null; }
+    RedBlackTree<K,V> runner = findBound(key,false);
+    return runner != null ? new Cursor(runner) : null;
+  }
+
+  public MambaCursor<K,V> seekFirst() {
+    if (this.key == null || this.parent != null) { return null; }
+    return new Cursor(findMinimum(this));
+  }
+
+  public MambaCursor<K,V> seekLast() {
+    if (this.key == null || this.parent != null) { return null; }
+    return new Cursor(findMaximum(this));
+  }
+
+  public int size() {
+    return header != null ? header.size : 0;
+  }
+  public long bytesUsed() {
+    if (header == null) { return 0; }
+    long nodeBytes = augmented() ? AUGMENTED_BYTES : NODE_BYTES;
+    return HEADER_BYTES + Math.max(header.size,1)*nodeBytes;
+  }
+
+
+  /**
+  * Enable or disable finger search. When enabled the tree remembers
+  * the last node found or inserted and starts the next descent from
+  * it, climbing only as far as the lowest ancestor whose subtree can
+  * hold the key. For a key at rank distance d from the finger that
+  * ancestor is typically O(log d) levels up, so nearly sorted access
+  * sequences avoid most of the descent from the root
+  */
+  public void setFingerSearch(boolean enabled) {
+    if (this.parent != null) { return; }
+    header.fingerSearch = enabled;
+    header.finger = null;
+  }
+
+  /**
+  * Retrieve the aggregate of every value in the tree under the monoid
+  * given at construction, or null if the tree was built without one
+  */
+  @SuppressWarnings("unchecked")
+  public <A> A aggregate() {
+    if (this.parent != null || header.monoid == null) { return null; }
+    return (A) (this.key == null ? header.monoid.identity() : aggregateOf(this));
+  }
+
+  /**
+  * Retrieve the aggregate of the values whose keys lie in [low,high].
+  * The descent splits where the paths to low and high part, then the
+  * aggregates of whole subtrees hanging inside the range are combined
+  * along both paths, so O(logn) nodes are visited
+  */
+  @SuppressWarnings("unchecked")
+  public <A> A aggregate(K low, K high) {
+    if (low == null || high == null || this.parent != null || header.monoid == null) { return null; }
+    Monoid<V,Object> monoid = header.monoid;
+    long lowPrefix = normalize(low);
+    long highPrefix = normalize(high);
+    RedBlackTree<K,V> runner = this.key == null ? null : this;
+    while (runner != null) {
+      if (compareNode(runner,low,lowPrefix) < 0) {
+        runner = runner.right;
+      }
+      else if (compareNode(runner,high,highPrefix) > 0) {
+        runner = runner.left;
+      }
+      else {
+        break;
+      }
+    }
+    if (runner == null) {
+      return (A) monoid.identity();
+    }
+    Object result = monoid.combine(suffixAggregate(runner.left,low,lowPrefix),
+      monoid.lift(runner.value));
+    return (A) monoid.combine(result,prefixAggregate(runner.right,high,highPrefix));
+  }
+
+  /**
+  * Retrieve the aggregate of the subtree rooted at this node, which
+  * lets structures built on the tree prune their own descents
+  */
+  <A> A subtreeAggregate() {
+    return null;
+  }
+
+  /**
+  * Replace the contents of the tree with the first size entries of
+  * keys and values, which must be sorted by strictly increasing key.
+  * Builds a complete tree in O(n) time, the deepest level is colored
+  * red so every path carries the same number of black nodes
+  */
+  void loadSorted(K[] keys, V[] values, int size) {
+    if (this.parent != null) { return; }
+    header.finger = null;
+    this.left = null;
+    this.right = null;
+    header.size = Math.max(size,0);
+    if (size <= 0) {
+      this.key = null;
+      this.value = null;
+      return;
+    }
+    int redDepth = 31 - Integer.numberOfLeadingZeros(size);
+    int mid = (size-1)/2;
+    this.key = keys[mid];
+    this.value = values[mid];
+    this.color = 1;
+    setPrefix(this,normalize(keys[mid]));
+    this.left = buildSorted(keys,values,0,mid-1,this,1,redDepth);
+    this.right = buildSorted(keys,values,mid+1,size-1,this,1,redDepth);
+    refresh(this);
+  }
+
   // ---------------------- Tree Specific Operations --------------------- \\
 
   /**
   * If this has been rotated to be off the root, rewire such that
   * this becomes the root of the tree (since this is final, it cannot
-  * be edited directly). If this has been rotated off, it is either
-  * the left or right child of the root, hence two cases to consider
+  * be edited directly). Each step exchanges this with its parent, which
+  * is either the left or right child case. A deletion can rotate this
+  * down twice (cases 1 and 5), so repeat until this is the root again
   */
   private void verifyRoot() {
-    if (this.parent != null) {
+    while (this.parent != null) {
+      RedBlackTree<K,V> top = this.parent.parent;
+      RedBlackTree<K,V> below = this.parent;
       swap(this,this.parent);
-      int t = this.color;
+      byte t = this.color;
       this.color = this.parent.color;
       this.parent.color = t;
       if (this.parent.left == this) {
@@ -154,25 +352,126 @@ public class RedBlackTree<K extends Comparable<K>,V extends Comparable<V>> imple
           temp.parent = this.parent;
         }
       }
+      if (top != null) {
+        if (top.left == this.parent) {
+          top.left = this;
+        }
+        else {
+          top.right = this;
+        }
+      }
       this.parent.parent = this;
-      this.parent = null;
+      this.parent = top;
+      refresh(below);
+      refresh(this);
+    }
+  }
+
+  /**
+  * Retrieve the node to begin a descent for key from. Without a finger
+  * this is the root. Otherwise start at the finger, whose subtree holds
+  * every key up to its nearest ancestor on the side of key. Only when
+  * key lies at or beyond that ancestor is it worth climbing past it
+  */
+  private RedBlackTree<K,V> startNode(K key, long prefix) {
+    if (header.finger == null) {
+      return this;
+    }
+    RedBlackTree<K,V> runner = header.finger;
+    int cmp = compareNode(runner,key,prefix);
+    while (cmp != 0) {
+      RedBlackTree<K,V> bound = runner;
+      if (cmp < 0) {
+        while (bound.parent != null && bound.parent.right == bound) {
+          bound = bound.parent;
+        }
+      }
+      else {
+        while (bound.parent != null && bound.parent.left == bound) {
+          bound = bound.parent;
+        }
+      }
+      bound = bound.parent;
+      if (bound == null) {
+        break;
+      }
+      int boundCmp = compareNode(bound,key,prefix);
+      if (cmp < 0 ? boundCmp > 0 : boundCmp < 0) {
+        break;
+      }
+      runner = bound;
+      cmp = boundCmp;
     }
+    return runner;
+  }
+
+  /**
+  * Unlink node from the tree, first swapping it with its nearest
+  * neighbour in key order if it is not a leaf
+  */
+  private void deleteNode(RedBlackTree<K,V> runner) {
+    // the node unlinked below may not be the one given, so
+    // drop the finger rather than risk it pointing out of the tree
+    header.finger = null;
+    header.size--;
+    if (isLeaf(runner) && runner == this) { 
+      this.key = null;
+      return;
+    }
+    else if (!isLeaf(runner)) {
+      RedBlackTree<K,V> target = runner.left == null 
+        ? findMinimum(runner.right) : findMaximum(runner.left);
+      swap(runner,target);
+      runner = target;
+      // the swap moved values between runner and target, both
+      // of which lie on the path from target to the root
+      refreshPath(runner);
+    }
+    deletionCheck(runner);
+    verifyRoot();
   }
 
   /**
   * Find the RedBlackTree<K,V> whose key matches the given key
   */
   private RedBlackTree<K,V> findNode(K key) {
-    RedBlackTree<K,V> runner = this;
+    long prefix = normalize(key);
+    RedBlackTree<K,V> runner = startNode(key,prefix);
     while (runner != null) {
-      if (runner.key.compareTo(key) == 0) {
+      int cmp = compareNode(runner,key,prefix);
+      if (cmp == 0) {
         break;
       }
-      runner = runner.key.compareTo(key) < 0 ? runner.right : runner.left;
+      runner = cmp < 0 ? runner.right : runner.left;
     }
     return runner;
   }
 
+  /**
+  * Find the RedBlackTree<K,V> with the least key greater than or equal to key
+  * when ceiling is set, otherwise the greatest key less than or equal
+  */
+  private RedBlackTree<K,V> findBound(K key, boolean ceiling) {
+    long prefix = normalize(key);
+    RedBlackTree<K,V> runner = this;
+    RedBlackTree<K,V> bound = null;
+    while (runner != null) {
+      int cmp = compareNode(runner,key,prefix);
+      if (cmp == 0) {
+        return runner;
+      }
+      if (cmp > 0) {
+        bound = ceiling ? runner : bound;
+        runner = runner.left;
+      }
+      else {
+        bound = ceiling ? bound : runner;
+        runner = runner.right;
+      }
+    }
+    return bound;
+  }
+
   /**
   * Verify red-black tree properties hold after an
   * insertion operation, correcting as needed
@@ -335,7 +634,8 @@ public class RedBlackTree<K extends Comparable<K>,V extends Comparable<V>> imple
   }
 
   /**
-  * Delete base with replacement target
+  * Delete base with replacement target, then recompute the
+  * aggregates of the ancestors of base
   */
   private void routeParent(RedBlackTree<K,V> base, RedBlackTree<K,V> target) {
     if (base.parent.left == base) {
@@ -347,6 +647,7 @@ public class RedBlackTree<K extends Comparable<K>,V extends Comparable<V>> imple
     if (target != null) {
       target.parent = base.parent;
     }
+    refreshPath(base.parent);
   }
 
   /**
@@ -402,6 +703,8 @@ public class RedBlackTree<K extends Comparable<K>,V extends Comparable<V>> imple
       node.left.parent = node;
     }
     node.parent.right = node;
+    refresh(node);
+    refresh(node.parent);
   }
 
   /**
@@ -423,6 +726,8 @@ public class RedBlackTree<K extends Comparable<K>,V extends Comparable<V>> imple
       node.right.parent = node;
     }
     node.parent.left = node;
+    refresh(node);
+    refresh(node.parent);
   }
 
   /**
@@ -457,7 +762,38 @@ public class RedBlackTree<K extends Comparable<K>,V extends Comparable<V>> imple
   }
 
   /**
-  * Swap keys and values between x and y
+  * Build a complete subtree over the sorted range [low,high] of keys
+  * and values, nodes at redDepth are colored red and all others black
+  */
+  private RedBlackTree<K,V> buildSorted(K[] keys, V[] values, int low, int high,
+    RedBlackTree<K,V> parent, int depth, int redDepth) {
+    if (low > high) {
+      return null;
+    }
+    int mid = low+(high-low)/2;
+    RedBlackTree<K,V> node = newNode(keys[mid], values[mid], parent,
+      depth == redDepth ? 0 : 1, normalize(keys[mid]));
+    if (high-low < TreeBuilder.PARALLEL_GRAIN) {
+      node.left = buildSorted(keys,values,low,mid-1,node,depth+1,redDepth);
+      node.right = buildSorted(keys,values,mid+1,high,node,depth+1,redDepth);
+      refresh(node);
+      return node;
+    }
+    // large ranges build their left half as a fork join task
+    // while this thread builds the right half
+    ForkJoinTask<RedBlackTree<K,V>> task = ForkJoinTask.adapt(new Callable<RedBlackTree<K,V>>() {
+      public RedBlackTree<K,V> call() {
+        return buildSorted(keys,values,low,mid-1,node,depth+1,redDepth);
+      }
+    }).fork();
+    node.right = buildSorted(keys,values,mid+1,high,node,depth+1,redDepth);
+    node.left = task.join();
+    refresh(node);
+    return node;
+  }
+
+  /**
+  * Swap keys, values and prefixes between x and y
   */
   private void swap(RedBlackTree<K,V> x, RedBlackTree<K,V> y) {
     K tempKey = x.key;
@@ -466,6 +802,279 @@ public class RedBlackTree<K extends Comparable<K>,V extends Comparable<V>> imple
     V tempValue = x.value;
     x.value = y.value;
     y.value = tempValue;
+    if (header.normalizer != null) {
+      Augmented<K,V> a = (Augmented<K,V>) x;
+      Augmented<K,V> b = (Augmented<K,V>) y;
+      long tempPrefix = a.prefix;
+      a.prefix = b.prefix;
+      b.prefix = tempPrefix;
+    }
+  }
+
+  /**
+  * Recompute the aggregate of node from its value and the
+  * aggregates of its children
+  */
+  private void refresh(RedBlackTree<K,V> node) {
+    Monoid<V,Object> monoid = header.monoid;
+    if (monoid == null) { return; }
+    Object result = monoid.lift(node.value);
+    if (node.left != null) {
+      result = monoid.combine(aggregateOf(node.left),result);
+    }
+    if (node.right != null) {
+      result = monoid.combine(result,aggregateOf(node.right));
+    }
+    ((Augmented<K,V>) node).aggregate = result;
+  }
+
+  /**
+  * Recompute the aggregates of node and all its ancestors
+  */
+  private void refreshPath(RedBlackTree<K,V> node) {
+    if (header.monoid == null) { return; }
+    while (node != null) {
+      refresh(node);
+      node = node.parent;
+    }
+  }
+
+  /**
+  * Aggregate the values of keys at least low in the subtree rooted
+  * at node, walking a single path down from node
+  */
+  private Object suffixAggregate(RedBlackTree<K,V> node, K low, long prefix) {
+    Monoid<V,Object> monoid = header.monoid;
+    Object result = monoid.identity();
+    while (node != null) {
+      if (compareNode(node,low,prefix) >= 0) {
+        Object part = monoid.lift(node.value);
+        if (node.right != null) {
+          part = monoid.combine(part,aggregateOf(node.right));
+        }
+        result = monoid.combine(part,result);
+        node = node.left;
+      }
+      else {
+        node = node.right;
+      }
+    }
+    return result;
+  }
+
+  /**
+  * Aggregate the values of keys at most high in the subtree rooted
+  * at node, walking a single path down from node
+  */
+  private Object prefixAggregate(RedBlackTree<K,V> node, K high, long prefix) {
+    Monoid<V,Object> monoid = header.monoid;
+    Object result = monoid.identity();
+    while (node != null) {
+      if (compareNode(node,high,prefix) <= 0) {
+        Object part = monoid.lift(node.value);
+        if (node.left != null) {
+          part = monoid.combine(aggregateOf(node.left),part);
+        }
+        result = monoid.combine(result,part);
+        node = node.right;
+      }
+      else {
+        node = node.left;
+      }
+    }
+    return result;
+  }
+
+  /**
+  * Determine whether the nodes of the tree are augmented, which they
+  * are whenever a normalizer or a monoid is set
+  */
+  private boolean augmented() {
+    return header.normalizer != null || header.monoid != null;
+  }
+
+  /**
+  * Construct a node for the tree, augmented if its nodes are
+  */
+  private RedBlackTree<K,V> newNode(K key, V value, RedBlackTree<K,V> parent, int color, long prefix) {
+    if (!augmented()) {
+      return new RedBlackTree<K,V>(key, value, parent, color);
+    }
+    return new Augmented<K,V>(key, value, parent, color, prefix);
+  }
+
+  /**
+  * Store the normalized prefix of node's key, which only augmented
+  * nodes of a tree with a normalizer keep
+  */
+  private void setPrefix(RedBlackTree<K,V> node, long prefix) {
+    if (header.normalizer != null) {
+      ((Augmented<K,V>) node).prefix = prefix;
+    }
+  }
+
+  /**
+  * Retrieve the aggregate of the subtree rooted at node
+  */
+  private Object aggregateOf(RedBlackTree<K,V> node) {
+    return ((Augmented<K,V>) node).aggregate;
+  }
+
+  /**
+  * Retrieve the normalized prefix of key, zero when no normalizer is set
+  */
+  private long normalize(K key) {
+    return header.normalizer != null ? header.normalizer.normalize(key) : 0;
+  }
+
+  /**
+  * Compare the key of node against key, deciding on the normalized
+  * prefixes alone whenever they differ
+  */
+  private int compareNode(RedBlackTree<K,V> node, K key, long prefix) {
+    if (header.normalizer != null) {
+      long nodePrefix = ((Augmented<K,V>) node).prefix;
+      if (nodePrefix != prefix) {
+        return nodePrefix < prefix ? -1 : 1;
+      }
+    }
+    return node.key.compareTo(key);
+  }
+
+  /**
+  * State of the whole tree, kept by the root so that every other node
+  * carries only its entry, its links and its color
+  */
+  private static final class Header<K extends Comparable<K>,V extends Comparable<V>> {
+
+    private final KeyNormalizer<K> normalizer;
+    private final Monoid<V,Object> monoid;
+
+    private RedBlackTree<K,V> finger;
+    private boolean fingerSearch;
+
+    // number of entries
+    private int size;
+
+    private Header(KeyNormalizer<K> normalizer, Monoid<V,Object> monoid) {
+      this.normalizer = normalizer;
+      this.monoid = monoid;
+    }
+
+  }
+
+  /**
+  * Node of a tree with a normalizer or a monoid, which also keeps the
+  * normalized prefix of its key and the aggregate of its subtree
+  */
+  private static final class Augmented<K extends Comparable<K>,V extends Comparable<V>> extends RedBlackTree<K,V> {
+
+    private long prefix;
+    private Object aggregate;
+
+    private Augmented(Header<K,V> header) {
+      super(header);
+    }
+
+    private Augmented(K key, V value, RedBlackTree<K,V> parent, int color, long prefix) {
+      super(key, value, parent, color);
+      this.prefix = prefix;
+    }
+
+    @SuppressWarnings("unchecked")
+    <A> A subtreeAggregate() {
+      return (A) aggregate;
+    }
+
+  }
+
+  /**
+  * Cursor resting on a node of this tree
+  */
+  private class Cursor implements MambaCursor<K,V> {
+
+    private RedBlackTree<K,V> node;
+    // key followed by a removed entry, found again on next use
+    private K pending;
+
+    private Cursor(RedBlackTree<K,V> node) {
+      this.node = node;
+    }
+
+    public boolean isValid() {
+      return node != null || pending != null;
+    }
+
+    public K getKey() {
+      settle();
+      return node != null ? node.key : null;
+    }
+
+    public V getValue() {
+      settle();
+      return node != null ? node.value : null;
+    }
+
+    public void setValue(V value) {
+      settle();
+      if (node != null) {
+        node.value = value;
+        refreshPath(node);
+      }
+    }
+
+    public boolean next() {
+      settle();
+      if (node == null) { return false; }
+      if (node.right != null) {
+        node = findMinimum(node.right);
+      }
+      else {
+        while (node.parent != null && node.parent.right == node) {
+          node = node.parent;
+        }
+        node = node.parent;
+      }
+      return node != null;
+    }
+
+    public boolean prev() {
+      settle();
+      if (node == null) { return false; }
+      if (node.left != null) {
+        node = findMaximum(node.left);
+      }
+      else {
+        while (node.parent != null && node.parent.left == node) {
+          node = node.parent;
+        }
+        node = node.parent;
+      }
+      return node != null;
+    }
+
+    public boolean remove() {
+      settle();
+      if (node == null) { return false; }
+      // deletion may move keys between nodes, so unlink the node in
+      // place and find the following key again once it is needed
+      RedBlackTree<K,V> target = node;
+      pending = next() ? node.key : null;
+      node = null;
+      deleteNode(target);
+      return pending != null;
+    }
+
+    /**
+    * Find the node of the key left pending by a removal
+    */
+    private void settle() {
+      if (pending != null) {
+        node = findNode(pending);
+        pending = null;
+      }
+    }
+
   }
 
 }
\ No newline at end of file
@@ -1,4 +1,6 @@
 import java.lang.Math.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
 
 /**
 * Scapegoat Tree - A height balanced binary
@@ -10,6 +12,9 @@ import java.lang.Math.*;
 */
 public class ScapegoatTree<K extends Comparable<K>, V extends Comparable<V>> implements MambaTree<K,V> {
 
+  // five references, a double and two ints
+  private static final long NODE_BYTES = MemoryEstimator.object(5,16);
+
   private K key;
   private V value;
 
@@ -36,19 +41,24 @@ public class ScapegoatTree<K extends Comparable<K>, V extends Comparable<V>> imp
   }
 
    public void insert(K key, V value) {
-    if (key == null || this.parent != null) { return; }
+    put(key, value);
+  }
+
+   public V put(K key, V value) {
+    if (key == null || this.parent != null) { return null; }
     if (this.key == null) {
       this.key = key;
       this.value = value;
       nodeCount = 1;
       maxNodeCount = 1;
-      return;
+      return null;
     }
     ScapegoatTree<K,V> curr = this;
     int depth = 0;
     while (true) {
       depth += 1;
-      if (curr.key.compareTo(key) < 0) {
+      int cmp = curr.key.compareTo(key);
+      if (cmp < 0) {
         if (curr.right == null) {
           ScapegoatTree<K,V> node = new ScapegoatTree<K,V>(key, value, curr);
           curr.right = node;
@@ -57,7 +67,7 @@ public class ScapegoatTree<K extends Comparable<K>, V extends Comparable<V>> imp
         }
         curr = curr.right;
       }
-      else if (curr.key.compareTo(key) > 0) {
+      else if (cmp > 0) {
         if (curr.left == null) {
           ScapegoatTree<K,V> node = new ScapegoatTree<K,V>(key, value, curr);
           curr.left = node;
@@ -67,8 +77,9 @@ public class ScapegoatTree<K extends Comparable<K>, V extends Comparable<V>> imp
         curr = curr.left;
       }
       else {
+        V old = curr.value;
         curr.value = value;
-        return;
+        return old;
       }
     }
     nodeCount += 1;
@@ -76,6 +87,7 @@ public class ScapegoatTree<K extends Comparable<K>, V extends Comparable<V>> imp
     if (depth > Math.floor(Math.log(nodeCount)/Math.log(1.0/alpha))) {
       insertionFix(curr);
     }
+    return null;
   }
 
   public V find(K key) {
@@ -88,32 +100,7 @@ public class ScapegoatTree<K extends Comparable<K>, V extends Comparable<V>> imp
     if (key == null || this.key == null || this.parent != null) { return; }
     ScapegoatTree<K,V> runner = findNode(key);
     if (runner != null) {
-      if (isLeaf(runner) && runner == this) { 
-        this.key = null;
-        nodeCount = 0;
-        maxNodeCount = 0;
-        return;
-      }
-      else if (runner.left != null && runner.right != null) {
-        ScapegoatTree<K,V> swapTarget = runner.left == null 
-          ? findMinimum(runner.right) : findMaximum(runner.left);
-        swap(swapTarget,runner);
-        runner = swapTarget;
-      }
-      if (runner == this) {
-        swapRoot();
-      }
-      else if (runner.left != null) {
-        routeParent(runner,runner.left);
-      }
-      else {
-        routeParent(runner,runner.right);
-      }
-      nodeCount -= 1;
-      if (nodeCount < alpha*maxNodeCount) {
-        fixTree(this, nodeCount);
-        maxNodeCount = nodeCount;
-      }
+      deleteNode(runner);
     }
   }
   
@@ -139,6 +126,65 @@ public class ScapegoatTree<K extends Comparable<K>, V extends Comparable<V>> imp
     return left;
   }
 
+  public MambaCursor<K,V> seek(K key) {
+    if (key == null || this.key == null || this.parent != null) { return null; }
+    ScapegoatTree<K,V> runner = findNode(key);
+    return runner != null ? new Cursor(runner) : null;
+  }
+
+  public MambaCursor<K,V> seekCeiling(K key) {
+    if (key == null || this.key == null || this.parent != null) { return null; }
+    ScapegoatTree<K,V> runner = findBound(key,true);
+    return runner != null ? new Cursor(runner) : null;
+  }
+
+  public MambaCursor<K,V> seekFloor(K key) {
+    if (key == null || this.key == null || this.parent != null) { return null; }
+    ScapegoatTree<K,V> runner = findBound(key,false);
+    return runner != null ? new Cursor(runner) : null;
+  }
+
+  public MambaCursor<K,V> seekFirst() {
+    if (this.key == null || this.parent != null) { return null; }
+    return new Cursor(findMinimum(this));
+  }
+
+  public MambaCursor<K,V> seekLast() {
+    if (this.key == null || this.parent != null) { return null; }
+    return new Cursor(findMaximum(this));
+  }
+
+  public int size() {
+    return nodeCount;
+  }
+
+  public long bytesUsed() {
+    return Math.max(nodeCount,1)*NODE_BYTES;
+  }
+
+  /**
+  * Replace the contents of the tree with the first size entries of
+  * keys and values, which must be sorted by strictly increasing key.
+  * Builds a balanced tree in O(n) time
+  */
+  void loadSorted(K[] keys, V[] values, int size) {
+    if (this.parent != null) { return; }
+    this.left = null;
+    this.right = null;
+    nodeCount = Math.max(size, 0);
+    maxNodeCount = nodeCount;
+    if (size <= 0) {
+      this.key = null;
+      this.value = null;
+      return;
+    }
+    int mid = (size-1)/2;
+    this.key = keys[mid];
+    this.value = values[mid];
+    this.left = buildSorted(keys,values,0,mid-1,this);
+    this.right = buildSorted(keys,values,mid+1,size-1,this);
+  }
+
   // ---------------------- Tree Specific Operations --------------------- \\
 
   /**
@@ -312,6 +358,34 @@ public class ScapegoatTree<K extends Comparable<K>, V extends Comparable<V>> imp
     return save;
   }
 
+  /**
+  * Build a balanced subtree over the sorted range [low,high]
+  * of keys and values
+  */
+  private ScapegoatTree<K,V> buildSorted(K[] keys, V[] values, int low, int high,
+    ScapegoatTree<K,V> parent) {
+    if (low > high) {
+      return null;
+    }
+    int mid = low+(high-low)/2;
+    ScapegoatTree<K,V> node = new ScapegoatTree<K,V>(keys[mid], values[mid], parent);
+    if (high-low < TreeBuilder.PARALLEL_GRAIN) {
+      node.left = buildSorted(keys,values,low,mid-1,node);
+      node.right = buildSorted(keys,values,mid+1,high,node);
+      return node;
+    }
+    // large ranges build their left half as a fork join task
+    // while this thread builds the right half
+    ForkJoinTask<ScapegoatTree<K,V>> task = ForkJoinTask.adapt(new Callable<ScapegoatTree<K,V>>() {
+      public ScapegoatTree<K,V> call() {
+        return buildSorted(keys,values,low,mid-1,node);
+      }
+    }).fork();
+    node.right = buildSorted(keys,values,mid+1,high,node);
+    node.left = task.join();
+    return node;
+  }
+
   /**
   * Determine whether node is a leaf or not
   */
@@ -319,20 +393,78 @@ public class ScapegoatTree<K extends Comparable<K>, V extends Comparable<V>> imp
       return node.left == null && node.right == null;
   }
 
+  /**
+  * Unlink node from the tree, first swapping it with its nearest
+  * neighbour in key order if it has two children
+  */
+  private void deleteNode(ScapegoatTree<K,V> runner) {
+    if (isLeaf(runner) && runner == this) { 
+      this.key = null;
+      nodeCount = 0;
+      maxNodeCount = 0;
+      return;
+    }
+    else if (runner.left != null && runner.right != null) {
+      ScapegoatTree<K,V> swapTarget = runner.left == null 
+        ? findMinimum(runner.right) : findMaximum(runner.left);
+      swap(swapTarget,runner);
+      runner = swapTarget;
+    }
+    if (runner == this) {
+      swapRoot();
+    }
+    else if (runner.left != null) {
+      routeParent(runner,runner.left);
+    }
+    else {
+      routeParent(runner,runner.right);
+    }
+    nodeCount -= 1;
+    if (nodeCount < alpha*maxNodeCount) {
+      fixTree(this, nodeCount);
+      maxNodeCount = nodeCount;
+    }
+  }
+
    /**
   * Find the ScapegoatTree<K,V> whose key matches the given key
   */
   private ScapegoatTree<K,V> findNode(K key) {
     ScapegoatTree<K,V> runner = this;
     while (runner != null) {
-      if (runner.key.compareTo(key) == 0) {
+      int cmp = runner.key.compareTo(key);
+      if (cmp == 0) {
         break;
       }
-      runner = runner.key.compareTo(key) < 0 ? runner.right : runner.left;
+      runner = cmp < 0 ? runner.right : runner.left;
     }
     return runner;
   }
 
+  /**
+  * Find the ScapegoatTree<K,V> with the least key greater than or equal to key
+  * when ceiling is set, otherwise the greatest key less than or equal
+  */
+  private ScapegoatTree<K,V> findBound(K key, boolean ceiling) {
+    ScapegoatTree<K,V> runner = this;
+    ScapegoatTree<K,V> bound = null;
+    while (runner != null) {
+      int cmp = runner.key.compareTo(key);
+      if (cmp == 0) {
+        return runner;
+      }
+      if (cmp > 0) {
+        bound = ceiling ? runner : bound;
+        runner = runner.left;
+      }
+      else {
+        bound = ceiling ? bound : runner;
+        runner = runner.right;
+      }
+    }
+    return bound;
+  }
+
   /**
   * Retrieve ScapegoatTree<K,V> with maximum value key in
   * subtree rooted at node
@@ -398,4 +530,92 @@ public class ScapegoatTree<K extends Comparable<K>, V extends Comparable<V>> imp
     return target.parent.right == target ? target.parent.left : target.parent.right;
   }
 
+  /**
+  * Cursor resting on a node of this tree
+  */
+  private class Cursor implements MambaCursor<K,V> {
+
+    private ScapegoatTree<K,V> node;
+    // key followed by a removed entry, found again on next use
+    private K pending;
+
+    private Cursor(ScapegoatTree<K,V> node) {
+      this.node = node;
+    }
+
+    public boolean isValid() {
+      return node != null || pending != null;
+    }
+
+    public K getKey() {
+      settle();
+      return node != null ? node.key : null;
+    }
+
+    public V getValue() {
+      settle();
+      return node != null ? node.value : null;
+    }
+
+    public void setValue(V value) {
+      settle();
+      if (node != null) {
+        node.value = value;
+      }
+    }
+
+    public boolean next() {
+      settle();
+      if (node == null) { return false; }
+      if (node.right != null) {
+        node = findMinimum(node.right);
+      }
+      else {
+        while (node.parent != null && node.parent.right == node) {
+          node = node.parent;
+        }
+        node = node.parent;
+      }
+      return node != null;
+    }
+
+    public boolean prev() {
+      settle();
+      if (node == null) { return false; }
+      if (node.left != null) {
+        node = findMaximum(node.left);
+      }
+      else {
+        while (node.parent != null && node.parent.left == node) {
+          node = node.parent;
+        }
+        node = node.parent;
+      }
+      return node != null;
+    }
+
+    public boolean remove() {
+      settle();
+      if (node == null) { return false; }
+      // deletion may move keys between nodes, so unlink the node in
+      // place and find the following key again once it is needed
+      ScapegoatTree<K,V> target = node;
+      pending = next() ? node.key : null;
+      node = null;
+      deleteNode(target);
+      return pending != null;
+    }
+
+    /**
+    * Find the node of the key left pending by a removal
+    */
+    private void settle() {
+      if (pending != null) {
+        node = findNode(pending);
+        pending = null;
+      }
+    }
+
+  }
+
 }
\ No newline at end of file
@@ -1,3 +1,6 @@
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
+
 /**
 * Splay Tree - A self adjusting binary search tree
 * that provides insert, find and delete operations in 
@@ -7,6 +10,9 @@
 */
 public class SplayTree<K extends Comparable<K>,V extends Comparable<V>> implements MambaTree<K,V> {
 
+  // five references and an int
+  private static final long NODE_BYTES = MemoryEstimator.object(5,4);
+
   private K key;
   private V value;
 
@@ -14,6 +20,9 @@ public class SplayTree<K extends Comparable<K>,V extends Comparable<V>> implemen
   private SplayTree<K,V> right;
   private SplayTree<K,V> parent;
 
+  // only maintained at the root
+  private int size;
+
   public SplayTree() {}
 
   private SplayTree(K key, V value, SplayTree<K,V> parent) {
@@ -23,40 +32,50 @@ public class SplayTree<K extends Comparable<K>,V extends Comparable<V>> implemen
   }
 
   public void insert(K key, V value) {
-    if (key == null || this.parent != null) { return; }
+    put(key, value);
+  }
+
+  public V put(K key, V value) {
+    if (key == null || this.parent != null) { return null; }
     if (this.key == null) {
       this.key = key;
       this.value = value;
-      return;
+      this.size = 1;
+      return null;
     }
     SplayTree<K,V> curr = this;
     while (true) {
-      if (curr.key.compareTo(key) < 0) {
+      int cmp = curr.key.compareTo(key);
+      if (cmp < 0) {
         if (curr.right == null) {
           SplayTree<K,V> node = new SplayTree<K,V>(key, value, curr);
           curr.right = node;
+          size++;
           splay(node);
           break;
         }
         curr = curr.right;
       }
-      else if (curr.key.compareTo(key) > 0) {
+      else if (cmp > 0) {
         if (curr.left == null) {
           SplayTree<K,V> node = new SplayTree<K,V>(key, value, curr);
           curr.left = node;
+          size++;
           splay(node);
           break;
         }
         curr = curr.left;
       }
       else {
+        V old = curr.value;
         curr.value = value;
         splay(curr);
         verifyRoot();
-        return;
+        return old;
       }
     }
     verifyRoot();
+    return null;
   }
 
   public V find(K key) {
@@ -77,31 +96,7 @@ public class SplayTree<K extends Comparable<K>,V extends Comparable<V>> implemen
     if (key == null || this.key == null || this.parent != null) { return; }
     SplayTree<K,V> runner = findNode(key);
     if (runner != null) {
-      if (isLeaf(runner)) {
-        if (runner == this) { 
-          this.key = null;
-          this.value = null;
-          return;
-        }
-        else {
-          routeParent(runner,null);
-        }
-      }
-      else {
-        if (runner.left == null) {
-          SplayTree<K,V> min = findMinimum(runner.right);
-          swap(runner,min);
-          runner = min;
-          routeParent(runner,runner.right);
-        }
-        else {
-          SplayTree<K,V> max = findMaximum(runner.left);
-          swap(runner,max);
-          runner = max;
-          routeParent(runner,runner.left);
-        }
-      }
-      verifyRoot();
+      deleteNode(runner);
     }
   }
 
@@ -127,6 +122,62 @@ public class SplayTree<K extends Comparable<K>,V extends Comparable<V>> implemen
     return left;
   } 
 
+  public MambaCursor<K,V> seek(K key) {
+    if (key == null || this.key == null || this.parent != null) { return null; }
+    return splayCursor(findNode(key));
+  }
+
+  public MambaCursor<K,V> seekCeiling(K key) {
+    if (key == null || this.key == null || this.parent != null) { return null; }
+    return splayCursor(findBound(key,true));
+  }
+
+  public MambaCursor<K,V> seekFloor(K key) {
+    if (key == null || this.key == null || this.parent != null) { return null; }
+    return splayCursor(findBound(key,false));
+  }
+
+  public MambaCursor<K,V> seekFirst() {
+    if (this.key == null || this.parent != null) { return null; }
+    return splayCursor(findMinimum(this));
+  }
+
+  public MambaCursor<K,V> seekLast() {
+    if (this.key == null || this.parent != null) { return null; }
+    return splayCursor(findMaximum(this));
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long bytesUsed() {
+    return Math.max(size,1)*NODE_BYTES;
+  }
+
+
+  /**
+  * Replace the contents of the tree with the first size entries of
+  * keys and values, which must be sorted by strictly increasing key.
+  * Builds a balanced tree in O(n) time
+  */
+  void loadSorted(K[] keys, V[] values, int size) {
+    if (this.parent != null) { return; }
+    this.left = null;
+    this.right = null;
+    this.size = Math.max(size,0);
+    if (size <= 0) {
+      this.key = null;
+      this.value = null;
+      return;
+    }
+    int mid = (size-1)/2;
+    this.key = keys[mid];
+    this.value = values[mid];
+    this.left = buildSorted(keys,values,0,mid-1,this);
+    this.right = buildSorted(keys,values,mid+1,size-1,this);
+  }
+
   // ---------------------- Tree Specific Operations --------------------- \\
 
   /**
@@ -255,20 +306,91 @@ public class SplayTree<K extends Comparable<K>,V extends Comparable<V>> implemen
     node.parent.left = node;
   }
 
+  /**
+  * Unlink node from the tree, first swapping it with its nearest
+  * neighbour in key order if it is not a leaf
+  */
+  private void deleteNode(SplayTree<K,V> runner) {
+    size--;
+    if (isLeaf(runner)) {
+      if (runner == this) { 
+        this.key = null;
+        this.value = null;
+        return;
+      }
+      else {
+        routeParent(runner,null);
+      }
+    }
+    else {
+      if (runner.left == null) {
+        SplayTree<K,V> min = findMinimum(runner.right);
+        swap(runner,min);
+        runner = min;
+        routeParent(runner,runner.right);
+      }
+      else {
+        SplayTree<K,V> max = findMaximum(runner.left);
+        swap(runner,max);
+        runner = max;
+        routeParent(runner,runner.left);
+      }
+    }
+    verifyRoot();
+  }
+
   /**
   * Find the SplayNode whose key matches the given key
   */
   private SplayTree<K,V> findNode(K key) {
     SplayTree<K,V> runner = this;
     while (runner != null) {
-      if (runner.key.compareTo(key) == 0) {
+      int cmp = runner.key.compareTo(key);
+      if (cmp == 0) {
         break;
       }
-      runner = runner.key.compareTo(key) < 0 ? runner.right : runner.left;
+      runner = cmp < 0 ? runner.right : runner.left;
     }
     return runner;
   }
 
+  /**
+  * Find the SplayTree<K,V> with the least key greater than or equal to key
+  * when ceiling is set, otherwise the greatest key less than or equal
+  */
+  private SplayTree<K,V> findBound(K key, boolean ceiling) {
+    SplayTree<K,V> runner = this;
+    SplayTree<K,V> bound = null;
+    while (runner != null) {
+      int cmp = runner.key.compareTo(key);
+      if (cmp == 0) {
+        return runner;
+      }
+      if (cmp > 0) {
+        bound = ceiling ? runner : bound;
+        runner = runner.left;
+      }
+      else {
+        bound = ceiling ? bound : runner;
+        runner = runner.right;
+      }
+    }
+    return bound;
+  }
+
+  /**
+  * Splay node to the root and retrieve a cursor on it, since
+  * verifyRoot moves the contents of node into this
+  */
+  private MambaCursor<K,V> splayCursor(SplayTree<K,V> node) {
+    if (node == null) {
+      return null;
+    }
+    splay(node);
+    verifyRoot();
+    return new Cursor(this);
+  }
+
   /**
   * Retrieve SplayNode with maximum value key in
   * subtree rooted at node
@@ -300,6 +422,34 @@ public class SplayTree<K extends Comparable<K>,V extends Comparable<V>> implemen
       return node.left == null && node.right == null;
   }
 
+  /**
+  * Build a balanced subtree over the sorted range [low,high]
+  * of keys and values
+  */
+  private SplayTree<K,V> buildSorted(K[] keys, V[] values, int low, int high,
+    SplayTree<K,V> parent) {
+    if (low > high) {
+      return null;
+    }
+    int mid = low+(high-low)/2;
+    SplayTree<K,V> node = new SplayTree<K,V>(keys[mid], values[mid], parent);
+    if (high-low < TreeBuilder.PARALLEL_GRAIN) {
+      node.left = buildSorted(keys,values,low,mid-1,node);
+      node.right = buildSorted(keys,values,mid+1,high,node);
+      return node;
+    }
+    // large ranges build their left half as a fork join task
+    // while this thread builds the right half
+    ForkJoinTask<SplayTree<K,V>> task = ForkJoinTask.adapt(new Callable<SplayTree<K,V>>() {
+      public SplayTree<K,V> call() {
+        return buildSorted(keys,values,low,mid-1,node);
+      }
+    }).fork();
+    node.right = buildSorted(keys,values,mid+1,high,node);
+    node.left = task.join();
+    return node;
+  }
+
   /**
   * Swap keys and values between x and y
   */
@@ -327,4 +477,92 @@ public class SplayTree<K extends Comparable<K>,V extends Comparable<V>> implemen
     }
   }
 
+  /**
+  * Cursor resting on a node of this tree
+  */
+  private class Cursor implements MambaCursor<K,V> {
+
+    private SplayTree<K,V> node;
+    // key followed by a removed entry, found again on next use
+    private K pending;
+
+    private Cursor(SplayTree<K,V> node) {
+      this.node = node;
+    }
+
+    public boolean isValid() {
+      return node != null || pending != null;
+    }
+
+    public K getKey() {
+      settle();
+      return node != null ? node.key : null;
+    }
+
+    public V getValue() {
+      settle();
+      return node != null ? node.value : null;
+    }
+
+    public void setValue(V value) {
+      settle();
+      if (node != null) {
+        node.value = value;
+      }
+    }
+
+    public boolean next() {
+      settle();
+      if (node == null) { return false; }
+      if (node.right != null) {
+        node = findMinimum(node.right);
+      }
+      else {
+        while (node.parent != null && node.parent.right == node) {
+          node = node.parent;
+        }
+        node = node.parent;
+      }
+      return node != null;
+    }
+
+    public boolean prev() {
+      settle();
+      if (node == null) { return false; }
+      if (node.left != null) {
+        node = findMaximum(node.left);
+      }
+      else {
+        while (node.parent != null && node.parent.left == node) {
+          node = node.parent;
+        }
+        node = node.parent;
+      }
+      return node != null;
+    }
+
+    public boolean remove() {
+      settle();
+      if (node == null) { return false; }
+      // deletion may move keys between nodes, so unlink the node in
+      // place and find the following key again once it is needed
+      SplayTree<K,V> target = node;
+      pending = next() ? node.key : null;
+      node = null;
+      deleteNode(target);
+      return pending != null;
+    }
+
+    /**
+    * Find the node of the key left pending by a removal
+    */
+    private void settle() {
+      if (pending != null) {
+        node = findNode(pending);
+        pending = null;
+      }
+    }
+
+  }
+
 }
\ No newline at end of file
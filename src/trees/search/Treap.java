@@ -1,4 +1,7 @@
  import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
 * Treap - A randomized binary search tree
@@ -9,6 +12,9 @@
 */
 public class Treap<K extends Comparable<K>, V extends Comparable<V>> implements MambaTree<K,V> {
 
+  // five references and two ints
+  private static final long NODE_BYTES = MemoryEstimator.object(5,8);
+
   private K key;
   private V value;
 
@@ -19,6 +25,9 @@ public class Treap<K extends Comparable<K>, V extends Comparable<V>> implements
   private static Random random = new Random();
   private int priority;
 
+  // number of entries, kept by the root only
+  private int size;
+
   public Treap() {}
 
   private Treap(K key, V value, Treap<K,V> parent) {
@@ -28,40 +37,57 @@ public class Treap<K extends Comparable<K>, V extends Comparable<V>> implements
     priority = random.nextInt();
   }
 
+  private Treap(K key, V value, Treap<K,V> parent, int priority) {
+    this.key = key;
+    this.value = value;
+    this.parent = parent;
+    this.priority = priority;
+  }
+
   public void insert(K key, V value) {
-    if (key == null || this.parent != null) { return; }
+    put(key, value);
+  }
+
+  public V put(K key, V value) {
+    if (key == null || this.parent != null) { return null; }
     if (this.key == null) {
       this.key = key;
       this.value = value;
       this.priority = random.nextInt();
-      return;
+      this.size = 1;
+      return null;
     }
     Treap<K,V> curr = this;
     while (true) {
-      if (curr.key.compareTo(key) < 0) {
+      int cmp = curr.key.compareTo(key);
+      if (cmp < 0) {
         if (curr.right == null) {
           Treap<K,V> node = new Treap<K,V>(key, value, curr);
           curr.right = node;
+          size++;
           prioritize(node);
           break;
         }
         curr = curr.right;
       }
-      else if (curr.key.compareTo(key) > 0) {
+      else if (cmp > 0) {
         if (curr.left == null) {
           Treap<K,V> node = new Treap<K,V>(key, value, curr);
           curr.left = node;
+          size++;
           prioritize(node);
           break;
         }
         curr = curr.left;
       }
       else {
+        V old = curr.value;
         curr.value = value;
-        return;
+        return old;
       }
     }
     verifyRoot();
+    return null;
   }
 
   public V find(K key) {
@@ -74,27 +100,7 @@ public class Treap<K extends Comparable<K>, V extends Comparable<V>> implements
     if (key == null || this.key == null || this.parent != null) { return; }
     Treap<K,V> runner = findNode(key);
     if (runner != null) {
-      if (isLeaf(runner) && runner == this) { 
-        this.key = null;
-        return;
-      }
-      else {
-        if (runner == this) {
-          deprioritize(runner);
-          if (runner.parent.right == runner) {
-            verifyRoot();
-            runner = runner.right;
-          }
-          else {
-            verifyRoot();
-            runner = runner.left;
-          }
-        }
-        while (!isLeaf(runner)) {
-          deprioritize(runner);
-        }
-        routeParent(runner,null);
-      }
+      deleteNode(runner);
     }
   }
 
@@ -120,6 +126,66 @@ public class Treap<K extends Comparable<K>, V extends Comparable<V>> implements
     return left;
   } 
 
+  public MambaCursor<K,V> seek(K key) {
+    if (key == null || this.key == null || this.parent != null) { return null; }
+    Treap<K,V> runner = findNode(key);
+    return runner != null ? new Cursor(runner) : null;
+  }
+
+  public MambaCursor<K,V> seekCeiling(K key) {
+    if (key == null || this.key == null || this.parent != null) { return null; }
+    Treap<K,V> runner = findBound(key,true);
+    return runner != null ? new Cursor(runner) : null;
+  }
+
+  public MambaCursor<K,V> seekFloor(K key) {
+    if (key == null || this.key == null || this.parent != null) { return null; }
+    Treap<K,V> runner = findBound(key,false);
+    return runner != null ? new Cursor(runner) : null;
+  }
+
+  public MambaCursor<K,V> seekFirst() {
+    if (this.key == null || this.parent != null) { return null; }
+    return new Cursor(findMinimum(this));
+  }
+
+  public MambaCursor<K,V> seekLast() {
+    if (this.key == null || this.parent != null) { return null; }
+    return new Cursor(findMaximum(this));
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long bytesUsed() {
+    return Math.max(size,1)*NODE_BYTES;
+  }
+
+  /**
+  * Replace the contents of the tree with the first size entries of
+  * keys and values, which must be sorted by strictly increasing key.
+  * Builds a balanced tree in O(n) time with priorities drawn from
+  * bands that shrink with depth, so the heap order holds throughout
+  */
+  void loadSorted(K[] keys, V[] values, int size) {
+    if (this.parent != null) { return; }
+    this.left = null;
+    this.right = null;
+    this.size = Math.max(size,0);
+    if (size <= 0) {
+      this.key = null;
+      this.value = null;
+      return;
+    }
+    int mid = (size-1)/2;
+    this.key = keys[mid];
+    this.value = values[mid];
+    this.priority = bandPriority(0);
+    this.left = buildSorted(keys,values,0,mid-1,this,1);
+    this.right = buildSorted(keys,values,mid+1,size-1,this,1);
+  }
+
   // ---------------------- Tree Specific Operations --------------------- \\
 
   /**
@@ -209,6 +275,42 @@ public class Treap<K extends Comparable<K>, V extends Comparable<V>> implements
     }
     node.parent.left = node;
   }
+  /**
+  * Build a balanced subtree over the sorted range [low,high]
+  * of keys and values
+  */
+  private Treap<K,V> buildSorted(K[] keys, V[] values, int low, int high,
+    Treap<K,V> parent, int depth) {
+    if (low > high) {
+      return null;
+    }
+    int mid = low+(high-low)/2;
+    Treap<K,V> node = new Treap<K,V>(keys[mid], values[mid], parent, bandPriority(depth));
+    if (high-low < TreeBuilder.PARALLEL_GRAIN) {
+      node.left = buildSorted(keys,values,low,mid-1,node,depth+1);
+      node.right = buildSorted(keys,values,mid+1,high,node,depth+1);
+      return node;
+    }
+    // large ranges build their left half as a fork join task
+    // while this thread builds the right half
+    ForkJoinTask<Treap<K,V>> task = ForkJoinTask.adapt(new Callable<Treap<K,V>>() {
+      public Treap<K,V> call() {
+        return buildSorted(keys,values,low,mid-1,node,depth+1);
+      }
+    }).fork();
+    node.right = buildSorted(keys,values,mid+1,high,node,depth+1);
+    node.left = task.join();
+    return node;
+  }
+
+  /**
+  * Random priority within the band for depth, each of the 32 possible
+  * depths owns a band of 2^26 values below the band of its parent
+  */
+  private static int bandPriority(int depth) {
+    return Integer.MAX_VALUE - (depth << 26) - ThreadLocalRandom.current().nextInt(1 << 26);
+  }
+
   /**
   * Determine whether node is a leaf or not
   */
@@ -216,20 +318,74 @@ public class Treap<K extends Comparable<K>, V extends Comparable<V>> implements
       return node.left == null && node.right == null;
   }
 
+  /**
+  * Unlink node from the tree, first rotating it down to a leaf
+  * if it has children
+  */
+  private void deleteNode(Treap<K,V> runner) {
+    size--;
+    if (isLeaf(runner) && runner == this) { 
+      this.key = null;
+      return;
+    }
+    else {
+      if (runner == this) {
+        deprioritize(runner);
+        if (runner.parent.right == runner) {
+          verifyRoot();
+          runner = runner.right;
+        }
+        else {
+          verifyRoot();
+          runner = runner.left;
+        }
+      }
+      while (!isLeaf(runner)) {
+        deprioritize(runner);
+      }
+      routeParent(runner,null);
+    }
+  }
+
    /**
   * Find the Treap<K,V> whose key matches the given key
   */
   private Treap<K,V> findNode(K key) {
     Treap<K,V> runner = this;
     while (runner != null) {
-      if (runner.key.compareTo(key) == 0) {
+      int cmp = runner.key.compareTo(key);
+      if (cmp == 0) {
         break;
       }
-      runner = runner.key.compareTo(key) < 0 ? runner.right : runner.left;
+      runner = cmp < 0 ? runner.right : runner.left;
     }
     return runner;
   }
 
+  /**
+  * Find the Treap<K,V> with the least key greater than or equal to key
+  * when ceiling is set, otherwise the greatest key less than or equal
+  */
+  private Treap<K,V> findBound(K key, boolean ceiling) {
+    Treap<K,V> runner = this;
+    Treap<K,V> bound = null;
+    while (runner != null) {
+      int cmp = runner.key.compareTo(key);
+      if (cmp == 0) {
+        return runner;
+      }
+      if (cmp > 0) {
+        bound = ceiling ? runner : bound;
+        runner = runner.left;
+      }
+      else {
+        bound = ceiling ? bound : runner;
+        runner = runner.right;
+      }
+    }
+    return bound;
+  }
+
   /**
   * Retrieve Treap<K,V> with maximum value key in
   * subtree rooted at node
@@ -311,4 +467,92 @@ public class Treap<K extends Comparable<K>, V extends Comparable<V>> implements
     }
   }
 
+  /**
+  * Cursor resting on a node of this tree
+  */
+  private class Cursor implements MambaCursor<K,V> {
+
+    private Treap<K,V> node;
+    // key followed by a removed entry, found again on next use
+    private K pending;
+
+    private Cursor(Treap<K,V> node) {
+      this.node = node;
+    }
+
+    public boolean isValid() {
+      return node != null || pending != null;
+    }
+
+    public K getKey() {
+      settle();
+      return node != null ? node.key : null;
+    }
+
+    public V getValue() {
+      settle();
+      return node != null ? node.value : null;
+    }
+
+    public void setValue(V value) {
+      settle();
+      if (node != null) {
+        node.value = value;
+      }
+    }
+
+    public boolean next() {
+      settle();
+      if (node == null) { return false; }
+      if (node.right != null) {
+        node = findMinimum(node.right);
+      }
+      else {
+        while (node.parent != null && node.parent.right == node) {
+          node = node.parent;
+        }
+        node = node.parent;
+      }
+      return node != null;
+    }
+
+    public boolean prev() {
+      settle();
+      if (node == null) { return false; }
+      if (node.left != null) {
+        node = findMaximum(node.left);
+      }
+      else {
+        while (node.parent != null && node.parent.left == node) {
+          node = node.parent;
+        }
+        node = node.parent;
+      }
+      return node != null;
+    }
+
+    public boolean remove() {
+      settle();
+      if (node == null) { return false; }
+      // deletion may move keys between nodes, so unlink the node in
+      // place and find the following key again once it is needed
+      Treap<K,V> target = node;
+      pending = next() ? node.key : null;
+      node = null;
+      deleteNode(target);
+      return pending != null;
+    }
+
+    /**
+    * Find the node of the key left pending by a removal
+    */
+    private void settle() {
+      if (pending != null) {
+        node = findNode(pending);
+        pending = null;
+      }
+    }
+
+  }
+
 }
\ No newline at end of file
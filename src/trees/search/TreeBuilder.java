@@ -0,0 +1,97 @@
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.stream.StreamSupport;
+
+/**
+* Tree Builder - Loads unsorted input into a balanced tree of any
+* type in O(nlogn) work spread across the common fork join pool.
+* Entries are sorted with a parallel merge sort, duplicate keys keep
+* the value that comes last (as repeated inserts would) and the tree
+* is then built bottom up with both halves of large ranges built in
+* parallel. Entries with a null key are skipped, as insert ignores them
+*/
+public class TreeBuilder {
+
+  /**
+  * Ranges smaller than this are built by the calling thread alone
+  */
+  static final int PARALLEL_GRAIN = 1 << 13;
+
+  private TreeBuilder() {}
+
+  /**
+  * Build a tree of the given type mapping keys[x] to values[x], or
+  * null if the arrays are missing or differ in length
+  */
+  public static <K extends Comparable<K>,V extends Comparable<V>> MambaTree<K,V> build(
+    TreeType type, K[] keys, V[] values) {
+    if (type == null || keys == null || values == null || keys.length != values.length) {
+      return null;
+    }
+    @SuppressWarnings("unchecked")
+    Map.Entry<K,V>[] entries = (Map.Entry<K,V>[]) new Map.Entry<?,?>[keys.length];
+    int size = 0;
+    for (int x = 0; x < keys.length; x++) {
+      if (keys[x] != null) {
+        entries[size++] = new AbstractMap.SimpleImmutableEntry<K,V>(keys[x], values[x]);
+      }
+    }
+    return load(type, entries, size);
+  }
+
+  /**
+  * Build a tree of the given type from the entries of a spliterator,
+  * which is traversed in parallel when it can be split
+  */
+  public static <K extends Comparable<K>,V extends Comparable<V>> MambaTree<K,V> build(
+    TreeType type, Spliterator<? extends Map.Entry<K,V>> source) {
+    if (type == null || source == null) {
+      return null;
+    }
+    // a parallel stream keeps encounter order when collecting
+    Object[] collected = StreamSupport.stream(source, true).toArray();
+    @SuppressWarnings("unchecked")
+    Map.Entry<K,V>[] entries = (Map.Entry<K,V>[]) new Map.Entry<?,?>[collected.length];
+    int size = 0;
+    for (int x = 0; x < collected.length; x++) {
+      @SuppressWarnings("unchecked")
+      Map.Entry<K,V> entry = (Map.Entry<K,V>) collected[x];
+      if (entry != null && entry.getKey() != null) {
+        entries[size++] = entry;
+      }
+    }
+    return load(type, entries, size);
+  }
+
+  /**
+  * Sort the first size entries by key, keep the last entry of every
+  * run of equal keys and build the tree from what remains
+  */
+  @SuppressWarnings("unchecked")
+  private static <K extends Comparable<K>,V extends Comparable<V>> MambaTree<K,V> load(
+    TreeType type, Map.Entry<K,V>[] entries, int size) {
+    // the parallel sort is stable, so entries with equal keys
+    // stay in input order and the last of each run wins
+    Arrays.parallelSort(entries, 0, size, new Comparator<Map.Entry<K,V>>() {
+      public int compare(Map.Entry<K,V> x, Map.Entry<K,V> y) {
+        return x.getKey().compareTo(y.getKey());
+      }
+    });
+    K[] keys = (K[]) new Comparable<?>[size];
+    V[] values = (V[]) new Comparable<?>[size];
+    int unique = 0;
+    for (int x = 0; x < size; x++) {
+      if (x+1 < size && entries[x].getKey().compareTo(entries[x+1].getKey()) == 0) {
+        continue;
+      }
+      keys[unique] = entries[x].getKey();
+      values[unique] = entries[x].getValue();
+      unique++;
+    }
+    return type.load(keys, values, unique);
+  }
+
+}
\ No newline at end of file
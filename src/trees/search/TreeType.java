@@ -0,0 +1,77 @@
+/**
+* Enumerates the binary search tree implementations that can
+* be bulk loaded from sorted keys and values
+*/
+public enum TreeType {
+
+  RED_BLACK {
+    <K extends Comparable<K>,V extends Comparable<V>> MambaTree<K,V> load(K[] keys, V[] values, int size) {
+      RedBlackTree<K,V> tree = new RedBlackTree<K,V>();
+      tree.loadSorted(keys, values, size);
+      return tree;
+    }
+  },
+
+  AVL {
+    <K extends Comparable<K>,V extends Comparable<V>> MambaTree<K,V> load(K[] keys, V[] values, int size) {
+      AvlTree<K,V> tree = new AvlTree<K,V>();
+      tree.loadSorted(keys, values, size);
+      return tree;
+    }
+  },
+
+  SPLAY {
+    <K extends Comparable<K>,V extends Comparable<V>> MambaTree<K,V> load(K[] keys, V[] values, int size) {
+      SplayTree<K,V> tree = new SplayTree<K,V>();
+      tree.loadSorted(keys, values, size);
+      return tree;
+    }
+  },
+
+  TREAP {
+    <K extends Comparable<K>,V extends Comparable<V>> MambaTree<K,V> load(K[] keys, V[] values, int size) {
+      Treap<K,V> tree = new Treap<K,V>();
+      tree.loadSorted(keys, values, size);
+      return tree;
+    }
+  },
+
+  BB_ALPHA {
+    <K extends Comparable<K>,V extends Comparable<V>> MambaTree<K,V> load(K[] keys, V[] values, int size) {
+      BbAlphaTree<K,V> tree = new BbAlphaTree<K,V>();
+      tree.loadSorted(keys, values, size);
+      return tree;
+    }
+  },
+
+  SCAPEGOAT {
+    <K extends Comparable<K>,V extends Comparable<V>> MambaTree<K,V> load(K[] keys, V[] values, int size) {
+      ScapegoatTree<K,V> tree = new ScapegoatTree<K,V>();
+      tree.loadSorted(keys, values, size);
+      return tree;
+    }
+  },
+
+  COMPACT_RED_BLACK {
+    <K extends Comparable<K>,V extends Comparable<V>> MambaTree<K,V> load(K[] keys, V[] values, int size) {
+      CompactRedBlackTree<K,V> tree = new CompactRedBlackTree<K,V>();
+      tree.loadSorted(keys, values, size);
+      return tree;
+    }
+  },
+
+  COMPACT_AVL {
+    <K extends Comparable<K>,V extends Comparable<V>> MambaTree<K,V> load(K[] keys, V[] values, int size) {
+      CompactAvlTree<K,V> tree = new CompactAvlTree<K,V>();
+      tree.loadSorted(keys, values, size);
+      return tree;
+    }
+  };
+
+  /**
+  * Build a tree of this type over the first size entries of keys
+  * and values, which must be sorted by strictly increasing key
+  */
+  abstract <K extends Comparable<K>,V extends Comparable<V>> MambaTree<K,V> load(K[] keys, V[] values, int size);
+
+}
\ No newline at end of file